@@ -0,0 +1,133 @@
+package org.jenkinsci.plugins.scriptler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
+import org.jenkinsci.plugins.scriptler.util.GroovyScript;
+import org.jenkinsci.plugins.scriptler.util.LookupCachingClassLoader;
+import org.jenkinsci.plugins.scriptler.util.ScriptHelper;
+import org.jenkinsci.plugins.scriptler.util.ScriptLibrary;
+
+/**
+ * Compiles the scripts having a matching warm-up label on agents as soon as they come online, so the first
+ * Scriptler build step on a freshly provisioned agent does not have to pay for the compilation.
+ */
+@Extension
+public class ScriptWarmUpListener extends ComputerListener {
+
+    private static final Logger LOGGER = Logger.getLogger(ScriptWarmUpListener.class.getName());
+
+    @Override
+    public void onOnline(Computer c, TaskListener listener) {
+        final Node node = c.getNode();
+        if (node == null || node instanceof Jenkins) {
+            // the built-in node compiles the scripts when they get saved
+            return;
+        }
+        final ArrayList<String> sources = new ArrayList<>();
+        final ArrayList<String> staticSources = new ArrayList<>();
+        collectWarmUpSources(node, sources, staticSources);
+        final VirtualChannel channel = c.getChannel();
+        if ((sources.isEmpty() && staticSources.isEmpty()) || channel == null) {
+            return;
+        }
+        Timer.get().submit(() -> {
+            try {
+                int compiled = channel.call(
+                        new WarmUp(sources, staticSources, ScriptLibrary.get().getCompiled()));
+                LOGGER.log(Level.FINE, "compiled {0} of {1} scripts on {2}", new Object[] {
+                    compiled, sources.size() + staticSources.size(), c.getName()
+                });
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> "not able to warm up the scripts on " + c.getName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static void collectWarmUpSources(
+            @NonNull Node node, @NonNull List<String> sources, @NonNull List<String> staticSources) {
+        for (Script script : ScriptlerConfiguration.getConfiguration().getScripts()) {
+            final String warmUpLabel = script.getWarmUpLabel();
+            if (warmUpLabel == null || script.onlyBuiltIn || script.isLibrary() || !matches(warmUpLabel, node)) {
+                continue;
+            }
+            final Script withSource = ScriptHelper.getScript(script.getId(), true);
+            final String source = withSource == null ? null : withSource.getScriptText();
+            // never compile scripts not approved yet, compiling can already execute code
+            if (source != null && ScriptHelper.isApproved(source, false)) {
+                (script.isCompileStatic() ? staticSources : sources).add(source);
+            }
+        }
+    }
+
+    private static boolean matches(@NonNull String labelExpression, @NonNull Node node) {
+        try {
+            return Label.parseExpression(labelExpression).matches(node);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "invalid warm-up label expression: {0}", labelExpression);
+            return false;
+        }
+    }
+
+    /**
+     * Compiles the given sources into the script pool of the agent.
+     */
+    static final class WarmUp extends MasterToSlaveCallable<Integer, RuntimeException> {
+        private final List<String> sources;
+        private final List<String> staticSources;
+
+        @CheckForNull
+        private final ScriptLibrary.Compiled library;
+
+        WarmUp(
+                @NonNull ArrayList<String> sources,
+                @NonNull ArrayList<String> staticSources,
+                @CheckForNull ScriptLibrary.Compiled library) {
+            this.sources = sources;
+            this.staticSources = staticSources;
+            this.library = library;
+        }
+
+        @Override
+        public Integer call() {
+            if (library != null) {
+                // the scripts run later on this agent do not have to ask for it
+                ScriptLibrary.addReceived(library);
+            }
+            final ClassLoader classLoader =
+                    LookupCachingClassLoader.wrap(Thread.currentThread().getContextClassLoader());
+            return precompile(sources, classLoader, false) + precompile(staticSources, classLoader, true);
+        }
+
+        private int precompile(List<String> sources, ClassLoader classLoader, boolean compileStatic) {
+            int compiled = 0;
+            for (String source : sources) {
+                try {
+                    GroovyScript.precompile(source, classLoader, compileStatic, library);
+                    compiled++;
+                } catch (RuntimeException | LinkageError e) {
+                    // broken scripts are reported on the controller when they get saved
+                }
+            }
+            return compiled;
+        }
+    }
+}
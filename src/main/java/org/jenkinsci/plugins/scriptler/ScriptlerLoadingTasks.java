@@ -33,6 +33,9 @@ import java.util.logging.Logger;
 import org.jenkinsci.plugins.scriptler.config.Script;
 import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
 import org.jenkinsci.plugins.scriptler.util.ScriptHelper;
+import org.jenkinsci.plugins.scriptler.util.ScriptLibrary;
+import org.jenkinsci.plugins.scriptler.util.ScriptPrecompiler;
+import org.jenkinsci.plugins.scriptler.util.ScriptSearchIndex;
 
 public final class ScriptlerLoadingTasks {
 
@@ -75,10 +78,13 @@ public final class ScriptlerLoadingTasks {
 
     @Initializer(after = InitMilestone.JOB_LOADED)
     public static void setupExistingScripts() {
-        for (Script script : ScriptlerConfiguration.getConfiguration().getScripts()) {
+        ScriptSearchIndex index = ScriptSearchIndex.get();
+        ScriptlerConfiguration cfg = ScriptlerConfiguration.getConfiguration();
+        for (Script script : cfg.getScripts()) {
             Path scriptFile = ScriptlerManagement.getScriptDirectory2().resolve(script.getScriptPath());
+            String scriptSource = null;
             try {
-                String scriptSource = ScriptHelper.readScriptFromFile(scriptFile);
+                scriptSource = ScriptHelper.readScriptFromFile(scriptFile);
 
                 // we cannot do that during start since the ScriptApproval is not yet loaded
                 // and only after JOB_LOADED to have the securityRealm configured
@@ -86,6 +92,10 @@ public final class ScriptlerLoadingTasks {
             } catch (IOException e) {
                 LOGGER.log(Level.WARNING, "Source file for the script [{0}] was not found", script.getId());
             }
+            index.index(script, scriptSource);
         }
+        // after the library scripts got approved, the other scripts are compiled against the library
+        ScriptLibrary.get().rebuild(cfg, ScriptlerManagement.getScriptDirectory2());
+        ScriptPrecompiler.scheduleAll(cfg, ScriptlerManagement.getScriptDirectory2());
     }
 }
@@ -23,6 +23,7 @@
  */
 package org.jenkinsci.plugins.scriptler;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.ExtensionList;
@@ -35,18 +36,27 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
 import org.apache.commons.fileupload2.core.FileItem;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.jenkinsci.plugins.scriptler.config.Parameter;
 import org.jenkinsci.plugins.scriptler.config.Script;
 import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
@@ -54,7 +64,19 @@ import org.jenkinsci.plugins.scriptler.git.GitScriptlerRepository;
 import org.jenkinsci.plugins.scriptler.share.CatalogInfo;
 import org.jenkinsci.plugins.scriptler.share.ScriptInfo;
 import org.jenkinsci.plugins.scriptler.share.ScriptInfoCatalog;
+import org.jenkinsci.plugins.scriptler.share.gh.CentralScriptJsonCatalog;
+import org.jenkinsci.plugins.scriptler.tokenmacro.ScriptlerTokenMacroCache;
+import org.jenkinsci.plugins.scriptler.util.ExecutionHistory;
+import org.jenkinsci.plugins.scriptler.util.MapReduce;
+import org.jenkinsci.plugins.scriptler.util.ParallelExecution;
 import org.jenkinsci.plugins.scriptler.util.ScriptHelper;
+import org.jenkinsci.plugins.scriptler.util.ScriptLibrary;
+import org.jenkinsci.plugins.scriptler.util.ScriptMemo;
+import org.jenkinsci.plugins.scriptler.util.ScriptPrecompiler;
+import org.jenkinsci.plugins.scriptler.util.ScriptResultCache;
+import org.jenkinsci.plugins.scriptler.util.ScriptSearchIndex;
+import org.jenkinsci.plugins.scriptler.util.SharedExecutions;
+import org.jenkinsci.plugins.scriptler.util.SpillingOutputStream;
 import org.jenkinsci.plugins.scriptler.util.UIHelper;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -75,6 +97,12 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
     private static final String NOT_APPROVED_YET = "notApprovedYet";
     private static final String CAN_BYPASS_APPROVAL = "canByPassScriptApproval";
     private static final String SCRIPT = "script";
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int DEFAULT_EXECUTIONS_LIMIT = 50;
+    private static final int MAX_EXECUTIONS_LIMIT = 500;
+    private static final String NDJSON = "application/x-ndjson";
+    // seconds the output of an idempotent script run via the REST API is still reused for
+    private static final String CACHE_REMAINING = "X-Scriptler-Cache-Remaining";
 
     // used in Jelly view
     public Permission getScriptlerRunScripts() {
@@ -161,17 +189,49 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
     public HttpResponse doScriptlerSettings(
             StaplerRequest2 res,
             StaplerResponse2 rsp,
-            @QueryParameter("disableRemoteCatalog") boolean disableRemoteCatalog)
+            @QueryParameter("disableRemoteCatalog") boolean disableRemoteCatalog,
+            @QueryParameter("shardedMetadata") boolean shardedMetadata)
             throws IOException {
         checkPermission(ScriptlerPermissions.CONFIGURE);
 
         ScriptlerConfiguration cfg = getConfiguration();
         cfg.setDisableRemoteCatalog(disableRemoteCatalog);
+        cfg.setShardedMetadata(shardedMetadata);
         cfg.save();
 
         return new HttpRedirect("settings");
     }
 
+    // used in Jelly view
+    public ScriptlerTokenMacroCache getTokenMacroCache() {
+        return ScriptlerTokenMacroCache.get();
+    }
+
+    /**
+     * Drops all cached outputs of the token macro and resets the statistics.
+     */
+    @RequirePOST
+    public HttpResponse doClearTokenMacroCache() {
+        checkPermission(ScriptlerPermissions.CONFIGURE);
+        ScriptlerTokenMacroCache.get().clear();
+        return new HttpRedirect("settings");
+    }
+
+    // used in Jelly view
+    public ScriptMemo.Store getScriptMemos() {
+        return ScriptMemo.getStore();
+    }
+
+    /**
+     * Drops all the values memoized by scripts and resets the statistics.
+     */
+    @RequirePOST
+    public HttpResponse doClearScriptMemos() {
+        checkPermission(ScriptlerPermissions.CONFIGURE);
+        ScriptMemo.getStore().clear();
+        return new HttpRedirect("settings");
+    }
+
     /**
      * Downloads a script from a catalog and imports it to the local system.
      *
@@ -209,7 +269,16 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
                 }
 
                 final String finalName = saveScriptAndForward(
-                        id, info.getName(), info.getComment(), source, false, false, catalogName, id, paramList);
+                        id,
+                        info.getName(),
+                        info.getComment(),
+                        source,
+                        false,
+                        false,
+                        catalogName,
+                        id,
+                        paramList,
+                        ScriptOptions.DEFAULTS);
                 return new HttpRedirect("editScript?id=" + finalName);
             }
         }
@@ -238,6 +307,18 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
      *            allow usage in Scriptler build step
      * @param onlyBuiltIn
      *            this script is only allowed to run on the built-in node
+     * @param warmUpLabel
+     *            (optional) label expression of the agents to compile the script on when they come online
+     * @param idempotent
+     *            concurrent executions of the script via the REST API with the same input may share their output
+     * @param resultCacheTtl
+     *            (optional) number of seconds the REST API reuses the output of an idempotent script
+     * @param resultCacheMaxBytes
+     *            (optional) maximum size of an output to be cached
+     * @param compileStatic
+     *            compile the script with <code>@CompileStatic</code>
+     * @param library
+     *            the script is compiled into the library available to all the other scripts
      * @param originCatalogName
      *            (optional) the name of the catalog the script is loaded/added from
      * @param originId
@@ -254,6 +335,12 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             @QueryParameter(SCRIPT) String script,
             @QueryParameter("nonAdministerUsing") boolean nonAdministerUsing,
             @QueryParameter("onlyBuiltIn") boolean onlyBuiltIn,
+            @QueryParameter("warmUpLabel") String warmUpLabel,
+            @QueryParameter("idempotent") boolean idempotent,
+            @QueryParameter(value = "resultCacheTtl", fixEmpty = true) String resultCacheTtl,
+            @QueryParameter(value = "resultCacheMaxBytes", fixEmpty = true) String resultCacheMaxBytes,
+            @QueryParameter("compileStatic") boolean compileStatic,
+            @QueryParameter("library") boolean library,
             String originCatalogName,
             String originId)
             throws IOException, ServletException {
@@ -261,12 +348,47 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         checkPermission(ScriptlerPermissions.CONFIGURE);
 
         List<Parameter> parameters = UIHelper.extractParameters(req.getSubmittedForm());
+        final int ttl = parseNonNegative("resultCacheTtl", resultCacheTtl);
+        final int maxBytes = parseNonNegative("resultCacheMaxBytes", resultCacheMaxBytes);
 
         saveScriptAndForward(
-                id, name, comment, script, nonAdministerUsing, onlyBuiltIn, originCatalogName, originId, parameters);
+                id,
+                name,
+                comment,
+                script,
+                nonAdministerUsing,
+                onlyBuiltIn,
+                originCatalogName,
+                originId,
+                parameters,
+                new ScriptOptions(warmUpLabel, idempotent, ttl, maxBytes, compileStatic, library));
         return new HttpRedirect(INDEX);
     }
 
+    /**
+     * Library scripts only provide classes to the other scripts, they are not run.
+     */
+    private static void checkRunnable(@NonNull Script script) {
+        if (script.isLibrary()) {
+            throw new Failure(Messages.scriptIsLibrary(script.getId()));
+        }
+    }
+
+    private static int parseNonNegative(String name, String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new Failure("'" + name + "' must be a non-negative number: " + value);
+    }
+
     /**
      * Save the script details and return the forward to index
      *
@@ -281,7 +403,8 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             boolean onlyBuiltIn,
             String originCatalogName,
             String originId,
-            @NonNull List<Parameter> parameters)
+            @NonNull List<Parameter> parameters,
+            @NonNull ScriptOptions options)
             throws IOException {
         script = script == null ? "TODO" : script;
         if (id == null || id.isEmpty()) {
@@ -324,12 +447,39 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             // save (overwrite) the meta information
             newScript = new Script(finalFileName, displayName, comment, nonAdministerUsing, parameters, onlyBuiltIn);
         }
+        options.applyTo(newScript);
         ScriptlerConfiguration cfg = getConfiguration();
         cfg.addOrReplace(newScript);
         cfg.save();
+        ScriptSearchIndex.get().index(cfg.getScriptById(finalFileName), script);
+        ScriptPrecompiler.schedule(finalFileName, script, newScript.isCompileStatic());
+        updateLibrary(cfg);
         return finalFileName;
     }
 
+    /**
+     * The options of a script set on the edit page, next to its metadata.
+     */
+    private record ScriptOptions(
+            String warmUpLabel,
+            boolean idempotent,
+            int resultCacheTtl,
+            int resultCacheMaxBytes,
+            boolean compileStatic,
+            boolean library) {
+
+        static final ScriptOptions DEFAULTS = new ScriptOptions(null, false, 0, 0, false, false);
+
+        void applyTo(@NonNull Script script) {
+            script.setWarmUpLabel(warmUpLabel);
+            script.setIdempotent(idempotent);
+            script.setResultCacheTtl(resultCacheTtl);
+            script.setResultCacheMaxBytes(resultCacheMaxBytes);
+            script.setCompileStatic(compileStatic);
+            script.setLibrary(library);
+        }
+    }
+
     /**
      * adds/commits the given file to the local git repo - file must be written to scripts directory!
      */
@@ -385,6 +535,8 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             Failure failure = new Failure("not able to delete " + oldScript);
             failure.initCause(e);
             throw failure;
+        } finally {
+            ScriptHelper.invalidateCachedSource(oldScript);
         }
 
         try {
@@ -397,6 +549,9 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         ScriptlerConfiguration cfg = getConfiguration();
         cfg.removeScript(id);
         cfg.save();
+        ScriptSearchIndex.get().remove(id);
+        ScriptPrecompiler.remove(id);
+        updateLibrary(cfg);
 
         return new HttpRedirect(INDEX);
     }
@@ -463,6 +618,7 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         }
 
         fileItem.write(f);
+        ScriptHelper.invalidateCachedSource(f);
 
         commitFileToGitRepo(fixedFileName);
 
@@ -476,6 +632,18 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
 
         ScriptlerConfiguration config = getConfiguration();
         config.addOrReplace(script);
+        ScriptSearchIndex.get().index(config.getScriptById(fixedFileName), scriptSource);
+        ScriptPrecompiler.schedule(fixedFileName, scriptSource, script.isCompileStatic());
+        updateLibrary(config);
+    }
+
+    /**
+     * Compiles the library again if a library script changed, the other scripts then get compiled against it.
+     */
+    private static void updateLibrary(ScriptlerConfiguration cfg) {
+        if (ScriptLibrary.get().rebuild(cfg, getScriptDirectory2())) {
+            ScriptPrecompiler.scheduleAll(cfg, getScriptDirectory2());
+        }
     }
 
     /**
@@ -497,6 +665,7 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             // TODO check if we cannot do better here
             throw new IOException(Messages.scriptNotFound(id));
         }
+        checkRunnable(script);
         if (script.getScriptText() == null) {
             req.setAttribute("scriptNotFound", true);
         } else {
@@ -552,6 +721,7 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             rsp.sendError(404, "No script found for id=" + id);
             return;
         }
+        checkRunnable(originalScript);
 
         String originalScriptSourceCode = originalScript.getScriptText();
 
@@ -567,7 +737,15 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         String output;
         if (ScriptHelper.isApproved(scriptSrc)) {
             List<String> computers = resolveComputerNames(node);
-            output = ScriptHelper.runScript(computers, scriptSrc, parameters);
+            SpillingOutputStream out = new SpillingOutputStream();
+            output = runAndRecord(
+                    id,
+                    scriptSrc,
+                    computers,
+                    out,
+                    stream -> ScriptHelper.runScript(
+                            computers, id, scriptSrc, parameters, tempScript.isCompileStatic(), stream));
+            req.setAttribute("outputId", out.getId());
         } else {
             LOGGER.log(
                     Level.WARNING,
@@ -598,6 +776,8 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
      *            the node, to execute the code on, defaults to {@value NodeNames#BUILT_IN}
      * @param contentType
      *            the contentType to use in the response, defaults to text/plain
+     * @param bypassCache
+     *            execute the script even if a cached output is available
      */
     @RequirePOST
     public void doRun(
@@ -605,7 +785,8 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             StaplerResponse2 rsp,
             @QueryParameter(fixEmpty = true) String script,
             @QueryParameter(fixEmpty = true) String node,
-            @QueryParameter(fixEmpty = true) String contentType)
+            @QueryParameter(fixEmpty = true) String contentType,
+            @QueryParameter boolean bypassCache)
             throws IOException, ServletException {
 
         checkPermission(ScriptlerPermissions.RUN_SCRIPTS);
@@ -624,6 +805,7 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         if (tempScript == null) {
             throw new IOException("Unknown script: " + id + ". Use /scriptler/run/<yourScriptId>");
         }
+        checkRunnable(tempScript);
 
         if (script == null) {
             // use original script
@@ -643,16 +825,277 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
 
         Collection<Parameter> paramArray = prepareParameters(req, tempScript);
 
+        final List<String> computers = resolveComputerNames(node == null ? NodeNames.BUILT_IN : node);
+
+        final String accept = req.getHeader("Accept");
+        if (accept != null && accept.contains(NDJSON)) {
+            streamResults(rsp, computers, id, script, paramArray, tempScript.isCompileStatic());
+            return;
+        }
+
         rsp.setContentType(contentType == null ? "text/plain" : contentType);
 
-        final List<String> computers = resolveComputerNames(node == null ? NodeNames.BUILT_IN : node);
-        if (computers.size() > 1) {
-            rsp.getOutputStream().print(ScriptHelper.runScript(computers, script, paramArray));
+        final String scriptText = script;
+        final boolean compileStatic = tempScript.isCompileStatic();
+        final String scriptId = id;
+        final SharedExecutions.Execution execution = () -> runAndRecord(
+                scriptId,
+                scriptText,
+                computers,
+                new SpillingOutputStream(),
+                stream -> computers.size() > 1
+                        ? ScriptHelper.runScript(computers, scriptId, scriptText, paramArray, compileStatic, stream)
+                        : ScriptHelper.runScript(
+                                computers.get(0), scriptId, scriptText, paramArray, compileStatic, stream));
+        if (tempScript.isIdempotent()) {
+            final String key = SharedExecutions.key(scriptText, paramArray, computers);
+            final int ttl = tempScript.getResultCacheTtl();
+            if (ttl > 0 && !bypassCache) {
+                final long now = System.currentTimeMillis();
+                final ScriptResultCache.Entry cached = ScriptResultCache.get().get(key, now);
+                if (cached != null) {
+                    rsp.setHeader(CACHE_REMAINING, String.valueOf(cached.remainingSeconds(now)));
+                    rsp.getOutputStream().print(cached.output());
+                    return;
+                }
+            }
+            // concurrent requests with the same input share one execution
+            final String output = SharedExecutions.run(key, execution);
+            if (ttl > 0
+                    && ScriptResultCache.get()
+                            .put(key, output, ttl, tempScript.getResultCacheMaxBytes(), System.currentTimeMillis())) {
+                rsp.setHeader(CACHE_REMAINING, String.valueOf(ttl));
+            }
+            rsp.getOutputStream().print(output);
         } else {
-            rsp.getOutputStream().print(ScriptHelper.runScript(computers.get(0), script, paramArray));
+            rsp.getOutputStream().print(execution.run());
+        }
+    }
+
+    /**
+     * Runs a script writing its output to the given stream, and records the run in the {@link ExecutionHistory}.
+     *
+     * @return the output, with only its head and tail if it is too big
+     */
+    private String runAndRecord(
+            String scriptId, String script, List<String> computers, SpillingOutputStream out, ScriptRun run)
+            throws IOException, ServletException {
+        ExecutionHistory.Recording recording = ExecutionHistory.get().start(scriptId, script, computers);
+        boolean success = false;
+        try {
+            try (OutputStream stream = new TeeOutputStream(out, recording)) {
+                success = run.run(stream);
+            }
+            return out.getText(getDownloadOutputUrl(out.getId()));
+        } finally {
+            recording.finish(success);
         }
     }
 
+    @FunctionalInterface
+    private interface ScriptRun {
+        boolean run(OutputStream output) throws IOException, ServletException;
+    }
+
+    private String getDownloadOutputUrl(@CheckForNull String id) {
+        String rootUrl = Jenkins.get().getRootUrl();
+        return (rootUrl == null ? "/" : rootUrl) + getUrlName() + "/downloadOutput?id=" + id;
+    }
+
+    /**
+     * Downloads the full output of a run whose output was too big to be shown, see {@link SpillingOutputStream}.
+     *
+     * @param id
+     *            the id of the output, given in the truncated output
+     */
+    public void doDownloadOutput(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter("id") String id)
+            throws IOException {
+        checkPermission(ScriptlerPermissions.RUN_SCRIPTS);
+
+        Path file = SpillingOutputStream.getFile(id);
+        if (file == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "No output found for id=" + id);
+            return;
+        }
+        rsp.setContentType("text/plain;charset=UTF-8");
+        rsp.setHeader("Content-Disposition", "attachment; filename=\"scriptler-output-" + id + ".log\"");
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(rsp.getOutputStream());
+        }
+    }
+
+    /**
+     * Writes a page of the runs recorded in the {@link ExecutionHistory} as JSON to the response, the newest first.
+     *
+     * @param req
+     *            request
+     * @param rsp
+     *            response
+     * @param offset
+     *            the number of runs to skip
+     * @param limit
+     *            the maximum number of runs, defaults to {@value #DEFAULT_EXECUTIONS_LIMIT}
+     */
+    public void doExecutions(
+            StaplerRequest2 req,
+            StaplerResponse2 rsp,
+            @QueryParameter("offset") int offset,
+            @QueryParameter("limit") int limit)
+            throws IOException {
+        checkPermission(ScriptlerPermissions.CONFIGURE);
+
+        int pageSize = limit <= 0 ? DEFAULT_EXECUTIONS_LIMIT : Math.min(limit, MAX_EXECUTIONS_LIMIT);
+        ExecutionHistory.Page page = ExecutionHistory.get().getRuns(Math.max(0, offset), pageSize);
+
+        JSONObject json = new JSONObject();
+        json.put("total", page.total());
+        json.put("offset", Math.max(0, offset));
+        json.put("executions", JSONArray.fromObject(page.runs()));
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json);
+    }
+
+    /**
+     * Writes the output of a run recorded in the {@link ExecutionHistory} to the response.
+     *
+     * @param id
+     *            the id of the run
+     */
+    public void doExecutionOutput(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter("id") String id)
+            throws IOException {
+        checkPermission(ScriptlerPermissions.CONFIGURE);
+
+        Path file = ExecutionHistory.get().getOutput(id);
+        if (file == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "No execution found for id=" + id);
+            return;
+        }
+        rsp.setContentType("text/plain;charset=UTF-8");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            in.transferTo(rsp.getOutputStream());
+        }
+    }
+
+    /**
+     * Writes one JSON record per node to the response, as soon as the node completes. The records are the output
+     * recorded in the {@link ExecutionHistory}.
+     */
+    private void streamResults(
+            StaplerResponse2 rsp,
+            List<String> computers,
+            String scriptId,
+            String script,
+            Collection<Parameter> parameters,
+            boolean compileStatic)
+            throws IOException, ServletException {
+        rsp.setContentType(NDJSON + ";charset=UTF-8");
+        final OutputStream out = rsp.getOutputStream();
+        final Function<String, String> downloadUrl = this::getDownloadOutputUrl;
+        final ExecutionHistory.Recording recording = ExecutionHistory.get().start(scriptId, script, computers);
+        final AtomicBoolean failed = new AtomicBoolean();
+        boolean completed = false;
+        try {
+            ParallelExecution.run(computers, scriptId, script, parameters, compileStatic, downloadUrl, result -> {
+                JSONObject record = new JSONObject();
+                record.put("node", result.node());
+                record.put("status", result.isSuccess() ? "success" : "failure");
+                record.put("durationMillis", result.durationMillis());
+                Object value = result.value();
+                if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+                    record.put("result", value);
+                } else if (value != null) {
+                    record.put("result", value.toString());
+                }
+                record.put("output", result.output());
+                if (result.error() != null) {
+                    record.put("error", result.error().toString());
+                }
+                final byte[] line = (record.toString() + '\n').getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                out.flush();
+                recording.write(line);
+                if (!result.isSuccess()) {
+                    failed.set(true);
+                }
+            });
+            completed = true;
+        } finally {
+            recording.finish(completed && !failed.get());
+        }
+    }
+
+    /**
+     * Runs the script given by the rest of the path on the given nodes and reduces the returned values with the
+     * reduce script on the controller, see {@link MapReduce}. The final value is written to the response.
+     *
+     * @param req
+     *            request
+     * @param rsp
+     *            response
+     * @param reduce
+     *            the id of the reduce script
+     * @param node
+     *            the nodes to run the map script on, defaults to {@value NodeNames#ALL}
+     * @param contentType
+     *            the contentType to use in the response, defaults to text/plain
+     */
+    @RequirePOST
+    public void doMapReduce(
+            StaplerRequest2 req,
+            StaplerResponse2 rsp,
+            @QueryParameter(fixEmpty = true) String reduce,
+            @QueryParameter(fixEmpty = true) String node,
+            @QueryParameter(fixEmpty = true) String contentType)
+            throws IOException, ServletException {
+
+        checkPermission(ScriptlerPermissions.RUN_SCRIPTS);
+
+        String id = req.getRestOfPath();
+        if (id.startsWith("/")) {
+            id = id.substring(1);
+        }
+
+        Script mapScript = ScriptHelper.getScript(id, true);
+        if (mapScript == null || mapScript.getScriptText() == null) {
+            throw new IOException("Unknown script: " + id + ". Use /scriptler/mapReduce/<yourScriptId>?reduce=<id>");
+        }
+        Script reduceScript = ScriptHelper.getScript(reduce, true);
+        if (reduceScript == null || reduceScript.getScriptText() == null) {
+            throw new IOException("Unknown reduce script: " + reduce);
+        }
+        checkRunnable(mapScript);
+        checkRunnable(reduceScript);
+
+        if (!ScriptHelper.isApproved(mapScript.getScriptText())
+                || !ScriptHelper.isApproved(reduceScript.getScriptText())) {
+            rsp.sendError(
+                    HttpServletResponse.SC_FORBIDDEN,
+                    "Script not approved yet, consider asking your administrator to approve it.");
+            return;
+        }
+
+        Collection<Parameter> paramArray = prepareParameters(req, mapScript);
+        final List<String> computers = resolveComputerNames(node == null ? NodeNames.ALL : node);
+
+        final String mapId = id;
+        // the reduced value is the output of the run, capped and recorded like the output of any other run
+        final String output =
+                runAndRecord(id, mapScript.getScriptText(), computers, new SpillingOutputStream(), stream -> {
+                    Object result = MapReduce.run(
+                            computers,
+                            mapId,
+                            mapScript.getScriptText(),
+                            paramArray,
+                            mapScript.isCompileStatic(),
+                            reduceScript.getScriptText());
+                    stream.write((result == null ? "" : result.toString()).getBytes(StandardCharsets.UTF_8));
+                    return true;
+                });
+        rsp.setContentType(contentType == null ? "text/plain" : contentType);
+        rsp.getOutputStream().print(output);
+    }
+
     @NonNull
     private Collection<Parameter> prepareParameters(StaplerRequest2 req, Script tempScript) {
         // retain default parameter values
@@ -684,6 +1127,75 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
         return computers;
     }
 
+    /**
+     * Searches the local scripts and the remote catalogs and writes the ranked hits as JSON to the response.
+     *
+     * @param req
+     *            request
+     * @param rsp
+     *            response
+     * @param query
+     *            the terms to search for
+     * @param limit
+     *            the maximum number of hits, defaults to {@value #DEFAULT_SEARCH_LIMIT}
+     */
+    public void doSearch(
+            StaplerRequest2 req,
+            StaplerResponse2 rsp,
+            @QueryParameter("q") String query,
+            @QueryParameter("limit") String limit)
+            throws IOException {
+        checkAtLeastOneScriptlerPermission();
+
+        final ScriptlerConfiguration cfg = getConfiguration();
+        final boolean canConfigure = Jenkins.get().hasPermission(ScriptlerPermissions.CONFIGURE);
+        final boolean withCatalogs = canConfigure && !cfg.isDisableRemoteCatalog();
+        final ScriptSearchIndex index = ScriptSearchIndex.get();
+        if (withCatalogs) {
+            List<ScriptInfoCatalog<ScriptInfo>> catalogs = getCatalogs();
+            index.indexCatalogs(
+                    CentralScriptJsonCatalog.getCatalog().getDataTimestamp() * 31 + catalogs.size(), catalogs);
+        }
+
+        int maxHits = DEFAULT_SEARCH_LIMIT;
+        if (limit != null && !limit.isBlank()) {
+            try {
+                maxHits = Integer.parseInt(limit.trim());
+            } catch (NumberFormatException e) {
+                throw new Failure("Invalid limit: " + limit);
+            }
+        }
+
+        List<ScriptSearchIndex.Hit> hits = index.search(query, maxHits, hit -> {
+            if (!hit.isLocal()) {
+                return withCatalogs;
+            }
+            if (canConfigure) {
+                return true;
+            }
+            Script script = cfg.getScriptById(hit.id());
+            return script != null && script.nonAdministerUsing;
+        });
+
+        JSONArray results = new JSONArray();
+        for (ScriptSearchIndex.Hit hit : hits) {
+            JSONObject result = new JSONObject();
+            result.put("id", hit.id());
+            result.put("name", hit.name());
+            result.put("comment", hit.comment());
+            result.put("catalog", hit.catalog());
+            result.put("local", hit.isLocal());
+            result.put("score", hit.score());
+            results.add(result);
+        }
+        JSONObject json = new JSONObject();
+        json.put("query", query);
+        json.put("results", results);
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json);
+    }
+
     /**
      * Loads the script by its name and forwards the request to "show.jelly".
      *
@@ -734,6 +1246,9 @@ public class ScriptlerManagement extends ManagementLink implements RootAction {
             }
 
             req.setAttribute(CAN_BYPASS_APPROVAL, canByPassScriptApproval);
+            req.setAttribute(
+                    "compilation",
+                    ScriptPrecompiler.getResult(script.getId(), script.getScriptText(), script.isCompileStatic()));
         }
 
         req.setAttribute(SCRIPT, script);
@@ -5,12 +5,18 @@ import hudson.Extension;
 import hudson.model.Action;
 import hudson.model.Job;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import jenkins.model.TransientActionFactory;
 
 @Extension
 @SuppressWarnings("rawtypes")
 public class TransientActionProvider extends TransientActionFactory<Job> {
+
+    /**
+     * {@link ScriptlerManagement} has no state, the job is taken from the request, so all jobs share one action
+     */
+    private static final Collection<? extends Action> ACTIONS = List.of(new JobAction());
+
     @Override
     public Class<Job> type() {
         return Job.class;
@@ -19,16 +25,18 @@ public class TransientActionProvider extends TransientActionFactory<Job> {
     @NonNull
     @Override
     public Collection<? extends Action> createFor(@NonNull Job target) {
-        return Collections.singleton(new ScriptlerManagement() {
-            @Override
-            public String getIconFileName() {
-                return null;
-            }
+        return ACTIONS;
+    }
+
+    private static final class JobAction extends ScriptlerManagement {
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
 
-            @Override
-            public String getDisplayName() {
-                return null;
-            }
-        });
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
     }
 }
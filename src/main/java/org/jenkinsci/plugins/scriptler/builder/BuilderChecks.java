@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.scriptler.builder;
+
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Project;
+import hudson.tasks.Builder;
+import hudson.util.XStream2;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.model.Jenkins;
+import jenkins.util.xstream.CriticalXStreamException;
+import org.jenkinsci.plugins.scriptler.Messages;
+import org.jenkinsci.plugins.scriptler.ScriptlerPermissions;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.util.ScriptHelper;
+import org.kohsuke.stapler.Stapler;
+
+/**
+ * The checks shared by {@link ScriptlerBuilder} and {@link ScriptlerBatchBuilder} when they are configured or loaded,
+ * so a user without the permission to configure Scriptler steps can only keep the existing ones.
+ */
+final class BuilderChecks {
+    static final String BUILDER_ID = "builderId";
+
+    private static final AtomicInteger CURRENT_ID = new AtomicInteger();
+
+    private BuilderChecks() {}
+
+    static void checkScript(@CheckForNull String scriptId, @NonNull Map<String, String> errors) {
+        Script script = ScriptHelper.getScript(scriptId, true);
+        if (script != null && !script.nonAdministerUsing) {
+            errors.put("scriptId", "The script is not allowed to be executed in a build, check its configuration!");
+        } else if (script != null && script.isLibrary()) {
+            errors.put("scriptId", Messages.scriptIsLibrary(script.getId()));
+        }
+    }
+
+    /**
+     * @param builder the builder to check, which must be one of the existing builders of the project unless the user
+     *                has the permission to configure Scriptler steps
+     */
+    static void checkPermission(
+            @NonNull Builder builder, @CheckForNull String builderId, @NonNull Map<String, String> errors) {
+        if (Jenkins.get().hasPermission(ScriptlerPermissions.CONFIGURE)) {
+            // user has right to add / edit Scriptler steps
+            return;
+        }
+
+        Project<?, ?> project = Optional.ofNullable(Stapler.getCurrentRequest2())
+                .map(req -> req.findAncestorObject(Project.class))
+                .orElse(null);
+        List<? extends Builder> existing =
+                project == null ? List.of() : project.getBuildersList().getAll(builder.getClass());
+        if (!existing.contains(builder)) {
+            final String message = hasBuilderId(builderId)
+                    ? "The builderId must correspond to an existing builder of that project since the user does not have the rights to add/edit Scriptler step"
+                    : "As the given builder does not have ID, it must be equals to one of the existing builder that does not have ID";
+            errors.put(BUILDER_ID, message);
+        }
+    }
+
+    static boolean hasBuilderId(@CheckForNull String builderId) {
+        return builderId != null && !builderId.isBlank();
+    }
+
+    static String generateBuilderId() {
+        return System.currentTimeMillis() + "_" + CURRENT_ID.addAndGet(1);
+    }
+
+    /**
+     * Automatically registered by XStream2.AssociatedConverterImpl#findConverter(Class) for the
+     * <code>ConverterImpl</code> of a builder. Process the class regularly but add a check after that
+     */
+    abstract static class CheckingConverter<T> extends XStream2.PassthruConverter<T> {
+        CheckingConverter(XStream2 xstream) {
+            super(xstream);
+        }
+
+        /**
+         * @return the validation errors by field, empty if the builder is valid
+         */
+        @NonNull
+        protected abstract Map<String, String> check(@NonNull T builder);
+
+        @Override
+        protected void callback(T obj, UnmarshallingContext context) {
+            Map<String, String> errors = check(obj);
+
+            if (!errors.isEmpty()) {
+                ConversionException conversionException = new ConversionException("Validation failed");
+                errors.forEach(conversionException::add);
+                throw new CriticalXStreamException(conversionException);
+            }
+        }
+    }
+}
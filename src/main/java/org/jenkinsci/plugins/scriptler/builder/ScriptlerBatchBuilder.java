@@ -0,0 +1,345 @@
+package org.jenkinsci.plugins.scriptler.builder;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.remoting.VirtualChannel;
+import hudson.security.Permission;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.util.XStream2;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.scriptler.Messages;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+import org.jenkinsci.plugins.scriptler.ScriptlerPermissions;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.util.ControllerGroovyScript;
+import org.jenkinsci.plugins.scriptler.util.GroovyScript;
+import org.jenkinsci.plugins.scriptler.util.GroovyScriptBatch;
+import org.jenkinsci.plugins.scriptler.util.UIHelper;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.bind.JavaScriptMethod;
+
+/**
+ * Runs several scripts in one build step. The scripts running on the same node are sent to it in a single call, see
+ * {@link GroovyScriptBatch}, instead of one call per {@link ScriptlerBuilder}.
+ * <p>
+ * The same permissions as for a {@link ScriptlerBuilder} are required to configure it.
+ */
+public class ScriptlerBatchBuilder extends Builder implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // this is only used to identify the builder if a user without privileges modifies the job.
+    @CheckForNull
+    private final String builderId;
+
+    @NonNull
+    private final List<Step> steps;
+
+    @DataBoundConstructor
+    public ScriptlerBatchBuilder(@CheckForNull String builderId, @CheckForNull List<Step> steps) {
+        this.builderId = builderId;
+        this.steps = new ArrayList<>(steps == null ? List.of() : steps);
+    }
+
+    public String getBuilderId() {
+        return builderId;
+    }
+
+    @NonNull
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    private @NonNull Map<String, String> checkGenericData() {
+        Map<String, String> errors = new HashMap<>();
+        for (Step step : steps) {
+            BuilderChecks.checkScript(step.getScriptId(), errors);
+        }
+        BuilderChecks.checkPermission(this, builderId, errors);
+        return errors;
+    }
+
+    /**
+     * Must not be called inside XML processing since the modified data are not stored
+     */
+    private ScriptlerBatchBuilder recreateBuilderWithBuilderIdIfRequired() {
+        if (!BuilderChecks.hasBuilderId(builderId)) {
+            return new ScriptlerBatchBuilder(BuilderChecks.generateBuilderId(), steps);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+        if (steps.isEmpty()) {
+            listener.getLogger().println(Messages.scriptNotDefined());
+            return false;
+        }
+
+        // none of the scripts is run unless all of them are usable
+        final List<Script> scripts = new ArrayList<>();
+        for (Step step : steps) {
+            final Script script = ScriptlerBuilder.getUsableScript(step.getScriptId(), build, listener);
+            if (script == null) {
+                return false;
+            }
+            scripts.add(script);
+        }
+
+        final String scriptIds = steps.stream().map(Step::getScriptId).collect(Collectors.joining(", "));
+        try {
+            // consecutive scripts running on the same node are sent in one call
+            List<GroovyScript> batch = new ArrayList<>();
+            boolean batchOnBuiltIn = false;
+            for (int i = 0; i < steps.size(); i++) {
+                final Step step = steps.get(i);
+                final Script script = scripts.get(i);
+                final List<Parameter> expandedParams = ScriptlerBuilder.expandParameters(
+                        build, listener, step.isPropagateParams(), step.getParametersList());
+                final boolean onBuiltIn = ScriptlerBuilder.runsOnBuiltIn(script);
+                if (!batch.isEmpty() && onBuiltIn != batchOnBuiltIn) {
+                    if (!run(batch, batchOnBuiltIn, scriptIds, launcher, listener)) {
+                        return false;
+                    }
+                    batch = new ArrayList<>();
+                }
+                final GroovyScript groovyScript;
+                if (onBuiltIn) {
+                    ControllerGroovyScript controllerScript = new ControllerGroovyScript(
+                            script.getScriptText(), expandedParams, true, listener, launcher, build);
+                    controllerScript.setScriptId(script.getId());
+                    groovyScript = controllerScript;
+                } else {
+                    groovyScript = new GroovyScript(script.getScriptText(), expandedParams, true, listener);
+                }
+                groovyScript.setCompileStatic(script.isCompileStatic());
+                batch.add(groovyScript);
+                batchOnBuiltIn = onBuiltIn;
+            }
+            return run(batch, batchOnBuiltIn, scriptIds, launcher, listener);
+        } catch (InterruptedException e) {
+            listener.getLogger().println(Messages.scriptExecutionFailed(scriptIds) + " - " + e.getMessage());
+            e.printStackTrace(listener.getLogger());
+            Thread.currentThread().interrupt();
+        } catch (IOException | MacroEvaluationException e) {
+            listener.getLogger().println(Messages.scriptExecutionFailed(scriptIds) + " - " + e.getMessage());
+            e.printStackTrace(listener.getLogger());
+        }
+        return false;
+    }
+
+    private static boolean run(
+            List<GroovyScript> scripts,
+            boolean onBuiltIn,
+            String scriptIds,
+            Launcher launcher,
+            BuildListener listener)
+            throws IOException, InterruptedException {
+        final GroovyScriptBatch batch = new GroovyScriptBatch(scripts);
+        final Object output;
+        if (onBuiltIn) {
+            output = FilePath.localChannel.call(batch);
+        } else {
+            VirtualChannel channel = launcher.getChannel();
+            if (channel == null) {
+                listener.getLogger()
+                        .println(Messages.scriptExecutionFailed(scriptIds) + " - " + Messages.agent_no_channel());
+                return false;
+            }
+            output = channel.call(batch);
+        }
+        return !Boolean.FALSE.equals(output);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ScriptlerBatchBuilder that = (ScriptlerBatchBuilder) o;
+
+        return Objects.equals(builderId, that.builderId) && Objects.equals(steps, that.steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(builderId, steps);
+    }
+
+    // Overridden for better type safety.
+    @Override
+    public DescriptorImpl getDescriptor() {
+        return (DescriptorImpl) super.getDescriptor();
+    }
+
+    /**
+     * A script of the batch with its parameters.
+     */
+    public static final class Step implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @CheckForNull
+        private final String scriptId;
+
+        private final boolean propagateParams;
+
+        @NonNull
+        private final List<Parameter> parameters;
+
+        public Step(@CheckForNull String scriptId, boolean propagateParams, @CheckForNull List<Parameter> parameters) {
+            this.scriptId = scriptId;
+            this.propagateParams = propagateParams;
+            this.parameters = new ArrayList<>(parameters == null ? List.of() : parameters);
+        }
+
+        @CheckForNull
+        public String getScriptId() {
+            return scriptId;
+        }
+
+        public boolean isPropagateParams() {
+            return propagateParams;
+        }
+
+        @NonNull
+        public List<Parameter> getParametersList() {
+            return Collections.unmodifiableList(parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Step that = (Step) o;
+
+            return propagateParams == that.propagateParams
+                    && Objects.equals(scriptId, that.scriptId)
+                    && Objects.equals(parameters, that.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(propagateParams, scriptId, parameters);
+        }
+    }
+
+    /**
+     * @see BuilderChecks.CheckingConverter
+     */
+    @SuppressWarnings("unused") // discovered dynamically
+    public static final class ConverterImpl extends BuilderChecks.CheckingConverter<ScriptlerBatchBuilder> {
+        public ConverterImpl(XStream2 xstream) {
+            super(xstream);
+        }
+
+        @NonNull
+        @Override
+        protected Map<String, String> check(@NonNull ScriptlerBatchBuilder builder) {
+            return builder.checkGenericData();
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
+
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return Jenkins.get().hasPermission(ScriptlerPermissions.RUN_SCRIPTS);
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.batchBuilder_name();
+        }
+
+        // used by Jelly views
+        public Permission getRequiredPermission() {
+            return ScriptlerPermissions.RUN_SCRIPTS;
+        }
+
+        @Override
+        public ScriptlerBatchBuilder newInstance(StaplerRequest2 req, JSONObject formData) {
+            String builderId = formData.optString(BuilderChecks.BUILDER_ID);
+            List<Step> steps = new ArrayList<>();
+            for (JSONObject stepData : stepsData(formData)) {
+                String id = stepData.optString("scriptlerScriptId");
+                if (id != null && !id.isBlank()) {
+                    steps.add(new Step(
+                            id, stepData.optBoolean("propagateParams"), UIHelper.extractParameters(stepData)));
+                }
+            }
+
+            ScriptlerBatchBuilder builder = new ScriptlerBatchBuilder(builderId, steps);
+            Map<String, String> errors = builder.checkGenericData();
+            if (!errors.isEmpty()) {
+                throw new ScriptlerBuilder.MultipleErrorFormValidation(errors);
+            }
+
+            return builder.recreateBuilderWithBuilderIdIfRequired();
+        }
+
+        private static List<JSONObject> stepsData(JSONObject formData) {
+            Object steps = formData.opt("steps");
+            if (steps instanceof JSONObject step) {
+                return List.of(step);
+            }
+            if (steps instanceof JSONArray array) {
+                List<JSONObject> result = new ArrayList<>();
+                for (Object step : array) {
+                    if (step instanceof JSONObject object) {
+                        result.add(object);
+                    }
+                }
+                return result;
+            }
+            return List.of();
+        }
+
+        public List<Script> getScripts() {
+            return ExtensionList.lookupSingleton(ScriptlerManagement.class)
+                    .getConfiguration()
+                    .getUserScriptsSortedByName();
+        }
+
+        /**
+         * @return the descriptor of {@link ScriptlerBuilder}, whose views render the fields of every script
+         */
+        public ScriptlerBuilder.DescriptorImpl getBuilderDescriptor() {
+            return ExtensionList.lookupSingleton(ScriptlerBuilder.DescriptorImpl.class);
+        }
+
+        /**
+         * @see ScriptlerBuilder.DescriptorImpl#getParameters(String)
+         */
+        @JavaScriptMethod
+        public JSONArray getParameters(String scriptlerScriptId) {
+            return getBuilderDescriptor().getParameters(scriptlerScriptId);
+        }
+    }
+}
@@ -3,10 +3,9 @@
  */
 package org.jenkinsci.plugins.scriptler.builder;
 
-import com.thoughtworks.xstream.converters.ConversionException;
-import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
 import hudson.Extension;
 import hudson.ExtensionList;
 import hudson.FilePath;
@@ -29,14 +28,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import jenkins.model.Jenkins;
-import jenkins.util.xstream.CriticalXStreamException;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.scriptler.Messages;
@@ -53,7 +51,6 @@ import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.HttpResponse;
-import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.bind.JavaScriptMethod;
@@ -63,13 +60,15 @@ import org.kohsuke.stapler.bind.JavaScriptMethod;
  *
  */
 public class ScriptlerBuilder extends Builder implements Serializable {
-    private static final AtomicInteger CURRENT_ID = new AtomicInteger();
-
     @Serial
     private static final long serialVersionUID = 1L;
 
     private static final Logger LOGGER = Logger.getLogger(ScriptlerBuilder.class.getName());
-    private static final String BUILDER_ID = "builderId";
+
+    /**
+     * the names {@link hudson.Util#replaceMacro(String, Map)} resolves
+     */
+    private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z0-9_.]+");
 
     // this is only used to identify the builder if a user without privileges modifies the job.
     @CheckForNull
@@ -109,57 +108,21 @@ public class ScriptlerBuilder extends Builder implements Serializable {
 
     private @NonNull Map<String, String> checkGenericData() {
         Map<String, String> errors = new HashMap<>();
-
-        Script script = ScriptHelper.getScript(scriptId, true);
-        if (script != null && !script.nonAdministerUsing) {
-            errors.put("scriptId", "The script is not allowed to be executed in a build, check its configuration!");
-        }
-
-        checkPermission(errors);
-
+        BuilderChecks.checkScript(scriptId, errors);
+        BuilderChecks.checkPermission(this, builderId, errors);
         return errors;
     }
 
-    private void checkPermission(@NonNull Map<String, String> errors) {
-        if (Jenkins.get().hasPermission(ScriptlerPermissions.CONFIGURE)) {
-            // user has right to add / edit Scriptler steps
-            return;
-        }
-
-        Project<?, ?> project = retrieveProjectUsingCurrentRequest();
-        if (!getAllScriptlerBuildersFromProject(project).contains(this)) {
-            final String message = builderId == null || builderId.isBlank()
-                    ? "As the given builder does not have ID, it must be equals to one of the existing builder that does not have ID"
-                    : "The builderId must correspond to an existing builder of that project since the user does not have the rights to add/edit Scriptler step";
-            errors.put(BUILDER_ID, message);
-        }
-
-        // else: we are not in a request context
-    }
-
     /**
      * Must not be called inside XML processing since the modified data are not stored
      */
     private ScriptlerBuilder recreateBuilderWithBuilderIdIfRequired() {
-        if (builderId == null || builderId.isBlank()) {
-            return new ScriptlerBuilder(generateBuilderId(), scriptId, propagateParams, parameters);
+        if (!BuilderChecks.hasBuilderId(builderId)) {
+            return new ScriptlerBuilder(BuilderChecks.generateBuilderId(), scriptId, propagateParams, parameters);
         }
         return this;
     }
 
-    private @NonNull List<ScriptlerBuilder> getAllScriptlerBuildersFromProject(@CheckForNull Project<?, ?> project) {
-        if (project == null) {
-            return List.of();
-        }
-        return project.getBuildersList().getAll(ScriptlerBuilder.class);
-    }
-
-    private @CheckForNull Project<?, ?> retrieveProjectUsingCurrentRequest() {
-        return Optional.ofNullable(Stapler.getCurrentRequest2())
-                .map(req -> req.findAncestorObject(Project.class))
-                .orElse(null);
-    }
-
     @CheckForNull
     public String getScriptId() {
         return scriptId;
@@ -188,6 +151,57 @@ public class ScriptlerBuilder extends Builder implements Serializable {
 
     @Override
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+        final Script script = getUsableScript(scriptId, build, listener);
+        if (script == null) {
+            return false;
+        }
+
+        boolean isOk = false;
+        try {
+            // expand the parameters before passing these to the execution, this is to allow any token macro to resolve
+            // parameter values
+            List<Parameter> expandedParams = expandParameters(build, listener, propagateParams, parameters);
+            final Object output;
+            if (runsOnBuiltIn(script)) {
+                // When run on the built-in node, make build, launcher, listener available to script
+                ControllerGroovyScript groovyScript = new ControllerGroovyScript(
+                        script.getScriptText(), expandedParams, true, listener, launcher, build);
+                groovyScript.setScriptId(script.getId());
+                groovyScript.setCompileStatic(script.isCompileStatic());
+                output = FilePath.localChannel.call(groovyScript);
+            } else {
+                VirtualChannel channel = launcher.getChannel();
+                if (channel == null) {
+                    output = null;
+                    listener.getLogger()
+                            .println(Messages.scriptExecutionFailed(scriptId) + " - " + Messages.agent_no_channel());
+                } else {
+                    GroovyScript groovyScript =
+                            new GroovyScript(script.getScriptText(), expandedParams, true, listener);
+                    groovyScript.setCompileStatic(script.isCompileStatic());
+                    output = channel.call(groovyScript);
+                }
+            }
+            isOk = !Boolean.FALSE.equals(output);
+        } catch (InterruptedException e) {
+            listener.getLogger().println(Messages.scriptExecutionFailed(scriptId) + " - " + e.getMessage());
+            e.printStackTrace(listener.getLogger());
+            Thread.currentThread().interrupt();
+        } catch (IOException | MacroEvaluationException e) {
+            listener.getLogger().println(Messages.scriptExecutionFailed(scriptId) + " - " + e.getMessage());
+            e.printStackTrace(listener.getLogger());
+        }
+
+        return isOk;
+    }
+
+    /**
+     * @return the script with the given id, <code>null</code> if it does not exist, is not allowed in build steps, is
+     *         a library script or is not approved, which is reported to the listener
+     */
+    @CheckForNull
+    static Script getUsableScript(
+            @CheckForNull String scriptId, @NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener) {
         final Script script = ScriptHelper.getScript(scriptId, true);
 
         if (script == null) {
@@ -203,10 +217,9 @@ public class ScriptlerBuilder extends Builder implements Serializable {
                         new Object[] {scriptId, build.getProject().getName(), build.getDisplayName()});
                 listener.getLogger().println(Messages.scriptNotFound(scriptId));
             }
-            return false;
+            return null;
         }
 
-        boolean isOk = false;
         if (!script.nonAdministerUsing) {
             listener.getLogger().println(Messages.scriptNotUsableInBuildStep(script.getName()));
             LOGGER.log(
@@ -215,7 +228,12 @@ public class ScriptlerBuilder extends Builder implements Serializable {
                     new Object[] {
                         script.getName(), script.getId(), build.getProject().getName(), build.getDisplayName()
                     });
-            return false;
+            return null;
+        }
+
+        if (script.isLibrary()) {
+            listener.getLogger().println(Messages.scriptIsLibrary(script.getName()));
+            return null;
         }
 
         if (!ScriptHelper.isApproved(script.getScriptText())) {
@@ -226,64 +244,67 @@ public class ScriptlerBuilder extends Builder implements Serializable {
                     new Object[] {
                         script.getName(), script.getId(), build.getProject().getName(), build.getDisplayName()
                     });
-            return false;
+            return null;
         }
+        return script;
+    }
 
-        try {
-
-            // expand the parameters before passing these to the execution, this is to allow any token macro to resolve
-            // parameter values
-            List<Parameter> expandedParams = new ArrayList<>();
-
-            if (propagateParams) {
-                final ParametersAction paramsAction = build.getAction(ParametersAction.class);
-                if (paramsAction == null) {
-                    listener.getLogger().println(Messages.no_parameters_defined());
-                } else {
-                    final List<ParameterValue> jobParams = paramsAction.getParameters();
-                    for (ParameterValue parameterValue : jobParams) {
+    /**
+     * @return the parameters of the job if they are propagated, followed by the given parameters, with all the token
+     *         macros expanded
+     */
+    @NonNull
+    static List<Parameter> expandParameters(
+            @NonNull AbstractBuild<?, ?> build,
+            @NonNull BuildListener listener,
+            boolean propagateParams,
+            @NonNull List<Parameter> parameters)
+            throws MacroEvaluationException, IOException, InterruptedException {
+        List<Parameter> expandedParams = new ArrayList<>();
+
+        if (propagateParams) {
+            final ParametersAction paramsAction = build.getAction(ParametersAction.class);
+            if (paramsAction == null) {
+                listener.getLogger().println(Messages.no_parameters_defined());
+            } else {
+                // the variables TokenMacro expands "${name}" with first, computed once for all the parameters
+                final EnvVars environment = build.getEnvironment(listener);
+                final Map<String, String> buildVariables = build.getBuildVariables();
+                for (ParameterValue parameterValue : paramsAction.getParameters()) {
+                    final String name = parameterValue.getName();
+                    String value = null;
+                    if (VARIABLE_NAME.matcher(name).matches()) {
+                        value = environment.get(name);
+                        if (value == null) {
+                            value = buildVariables.get(name);
+                        }
+                    }
+                    if (value == null || value.indexOf('$') >= 0) {
                         // pass the params to the token expander in a way that these get expanded by environment
                         // variables (params are also environment variables)
-                        String macro = "${" + parameterValue.getName() + "}";
-                        String value = TokenMacro.expandAll(build, listener, macro, false, null);
-                        expandedParams.add(new Parameter(parameterValue.getName(), value));
+                        value = TokenMacro.expandAll(build, listener, "${" + name + "}", false, null);
                     }
+                    expandedParams.add(new Parameter(name, value));
                 }
             }
-            for (Parameter parameter : parameters) {
-                expandedParams.add(new Parameter(
-                        parameter.getName(), TokenMacro.expandAll(build, listener, parameter.getValue())));
-            }
-            final Object output;
-            if (script.onlyBuiltIn || Computer.currentComputer() instanceof Jenkins.MasterComputer) {
-                // When run on the built-in node, make build, launcher, listener available to script
-                output = FilePath.localChannel.call(new ControllerGroovyScript(
-                        script.getScriptText(), expandedParams, true, listener, launcher, build));
-            } else {
-                VirtualChannel channel = launcher.getChannel();
-                if (channel == null) {
-                    output = null;
-                    listener.getLogger()
-                            .println(Messages.scriptExecutionFailed(scriptId) + " - " + Messages.agent_no_channel());
-                } else {
-                    output = channel.call(new GroovyScript(script.getScriptText(), expandedParams, true, listener));
-                }
-            }
-            isOk = !Boolean.FALSE.equals(output);
-        } catch (InterruptedException e) {
-            listener.getLogger().println(Messages.scriptExecutionFailed(scriptId) + " - " + e.getMessage());
-            e.printStackTrace(listener.getLogger());
-            Thread.currentThread().interrupt();
-        } catch (IOException | MacroEvaluationException e) {
-            listener.getLogger().println(Messages.scriptExecutionFailed(scriptId) + " - " + e.getMessage());
-            e.printStackTrace(listener.getLogger());
         }
-
-        return isOk;
+        for (Parameter parameter : parameters) {
+            final String value = parameter.getValue();
+            // neither variables nor token macros without a '$'
+            expandedParams.add(new Parameter(
+                    parameter.getName(),
+                    value != null && value.indexOf('$') >= 0
+                            ? TokenMacro.expandAll(build, listener, value)
+                            : value));
+        }
+        return expandedParams;
     }
 
-    private static String generateBuilderId() {
-        return System.currentTimeMillis() + "_" + CURRENT_ID.addAndGet(1);
+    /**
+     * @return whether the script runs on the built-in node rather than on the node of the build
+     */
+    static boolean runsOnBuiltIn(@NonNull Script script) {
+        return script.onlyBuiltIn || Computer.currentComputer() instanceof Jenkins.MasterComputer;
     }
 
     @Override
@@ -311,30 +332,26 @@ public class ScriptlerBuilder extends Builder implements Serializable {
     }
 
     /**
-     * Automatically registered by XStream2.AssociatedConverterImpl#findConverter(Class)
-     * Process the class regularly but add a check after that
+     * @see BuilderChecks.CheckingConverter
      */
     @SuppressWarnings("unused") // discovered dynamically
-    public static final class ConverterImpl extends XStream2.PassthruConverter<ScriptlerBuilder> {
+    public static final class ConverterImpl extends BuilderChecks.CheckingConverter<ScriptlerBuilder> {
         public ConverterImpl(XStream2 xstream) {
             super(xstream);
         }
 
+        @NonNull
         @Override
-        protected void callback(ScriptlerBuilder obj, UnmarshallingContext context) {
-            Map<String, String> errors = obj.checkGenericData();
-
-            if (!errors.isEmpty()) {
-                ConversionException conversionException = new ConversionException("Validation failed");
-                errors.forEach(conversionException::add);
-                throw new CriticalXStreamException(conversionException);
-            }
+        protected Map<String, String> check(@NonNull ScriptlerBuilder builder) {
+            return builder.checkGenericData();
         }
     }
 
     @Extension
     public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
 
+        private final transient Map<String, CachedParameters> parametersCache = new ConcurrentHashMap<>();
+
         @Override
         public boolean isApplicable(Class<? extends AbstractProject> jobType) {
             return Jenkins.get().hasPermission(ScriptlerPermissions.RUN_SCRIPTS);
@@ -354,7 +371,7 @@ public class ScriptlerBuilder extends Builder implements Serializable {
         @Override
         public ScriptlerBuilder newInstance(StaplerRequest2 req, JSONObject formData) {
             ScriptlerBuilder builder = null;
-            String builderId = formData.optString(BUILDER_ID);
+            String builderId = formData.optString(BuilderChecks.BUILDER_ID);
             String id = formData.optString("scriptlerScriptId");
 
             if (id != null && !id.isBlank()) {
@@ -379,14 +396,7 @@ public class ScriptlerBuilder extends Builder implements Serializable {
 
         public List<Script> getScripts() {
             // TODO currently only script for RUN_SCRIPT permissions are returned?
-            List<Script> scriptsForBuilder = new ArrayList<>();
-            for (Script script : getConfig().getScripts()) {
-                if (script.nonAdministerUsing) {
-                    scriptsForBuilder.add(script);
-                }
-            }
-            scriptsForBuilder.sort(Script.COMPARATOR_BY_NAME);
-            return scriptsForBuilder;
+            return getConfig().getUserScriptsSortedByName();
         }
 
         private ScriptlerManagement getScriptler() {
@@ -407,17 +417,29 @@ public class ScriptlerBuilder extends Builder implements Serializable {
         @JavaScriptMethod
         public JSONArray getParameters(String scriptlerScriptId) {
             final Script script = getConfig().getScriptById(scriptlerScriptId);
-            if (script != null) {
-                return JSONArray.fromObject(script.getParameters());
+            if (script == null) {
+                if (scriptlerScriptId != null) {
+                    parametersCache.remove(scriptlerScriptId);
+                }
+                return null;
             }
-            return null;
+            final List<Parameter> parameters = List.copyOf(script.getParameters());
+            CachedParameters cached = parametersCache.get(scriptlerScriptId);
+            if (cached == null || !cached.parameters.equals(parameters)) {
+                // converting the beans to JSON is expensive, only do it once per version of the parameters
+                cached = new CachedParameters(parameters, JSONArray.fromObject(parameters));
+                parametersCache.put(scriptlerScriptId, cached);
+            }
+            return cached.json;
         }
+
+        private record CachedParameters(List<Parameter> parameters, JSONArray json) {}
     }
 
     /**
      * Notify the user with multiple message about the validation that failed
      */
-    private static class MultipleErrorFormValidation extends RuntimeException implements HttpResponse {
+    static class MultipleErrorFormValidation extends RuntimeException implements HttpResponse {
         private final Map<String, String> fieldToMessage;
 
         public MultipleErrorFormValidation(Map<String, String> fieldToMessage) {
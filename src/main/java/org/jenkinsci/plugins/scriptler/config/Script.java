@@ -76,6 +76,37 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
     @Deprecated(since = "381")
     public final Boolean onlyMaster;
 
+    /**
+     * label expression of the agents the script gets compiled on as soon as they come online
+     */
+    @CheckForNull
+    private String warmUpLabel;
+
+    /**
+     * the script has no side effects, so concurrent executions with the same input may share their result
+     */
+    private boolean idempotent;
+
+    /**
+     * number of seconds the output of an idempotent script is reused by the REST API, <code>0</code> disables caching
+     */
+    private int resultCacheTtl;
+
+    /**
+     * outputs bigger than this number of bytes are not cached, <code>0</code> means the default limit
+     */
+    private int resultCacheMaxBytes;
+
+    /**
+     * the script is compiled with <code>@CompileStatic</code>, so type errors are reported when it is saved
+     */
+    private boolean compileStatic;
+
+    /**
+     * the script is not run but compiled into the library, which is on the classpath of all the other scripts
+     */
+    private boolean library;
+
     /**
      * used to create/update a new script in the UI
      */
@@ -167,7 +198,7 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
     }
 
     public Script copy() {
-        return new Script(
+        Script copy = new Script(
                 id,
                 name,
                 comment,
@@ -178,6 +209,20 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
                 nonAdministerUsing,
                 parameters,
                 onlyBuiltIn);
+        copy.copyOptionsFrom(this);
+        return copy;
+    }
+
+    /**
+     * Takes over the optional settings of the given script, which are not passed through the constructors.
+     */
+    public void copyOptionsFrom(@NonNull Script other) {
+        this.warmUpLabel = other.warmUpLabel;
+        this.idempotent = other.idempotent;
+        this.resultCacheTtl = other.resultCacheTtl;
+        this.resultCacheMaxBytes = other.resultCacheMaxBytes;
+        this.compileStatic = other.compileStatic;
+        this.library = other.library;
     }
 
     /*
@@ -244,6 +289,55 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
         return Collections.unmodifiableList(parameters);
     }
 
+    @CheckForNull
+    public String getWarmUpLabel() {
+        return warmUpLabel;
+    }
+
+    public void setWarmUpLabel(@CheckForNull String warmUpLabel) {
+        this.warmUpLabel = Util.fixEmptyAndTrim(warmUpLabel);
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    public int getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    public void setResultCacheTtl(int resultCacheTtl) {
+        this.resultCacheTtl = Math.max(0, resultCacheTtl);
+    }
+
+    public int getResultCacheMaxBytes() {
+        return resultCacheMaxBytes;
+    }
+
+    public void setResultCacheMaxBytes(int resultCacheMaxBytes) {
+        this.resultCacheMaxBytes = Math.max(0, resultCacheMaxBytes);
+    }
+
+    public boolean isCompileStatic() {
+        return compileStatic;
+    }
+
+    public void setCompileStatic(boolean compileStatic) {
+        this.compileStatic = compileStatic;
+    }
+
+    public boolean isLibrary() {
+        return library;
+    }
+
+    public void setLibrary(boolean library) {
+        this.library = library;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -257,7 +351,7 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
     public Object readResolve() {
         if (onlyMaster != null || onlyController != null) {
             boolean onlyBuiltIn = onlyMaster == null ? onlyController : onlyMaster;
-            return new Script(
+            Script migrated = new Script(
                     id,
                     name,
                     comment,
@@ -268,6 +362,8 @@ public class Script implements Comparable<Script>, NamedResource, Serializable {
                     nonAdministerUsing,
                     parameters,
                     onlyBuiltIn);
+            migrated.copyOptionsFrom(this);
+            return migrated;
         }
         return this;
     }
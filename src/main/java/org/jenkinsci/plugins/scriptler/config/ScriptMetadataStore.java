@@ -0,0 +1,106 @@
+package org.jenkinsci.plugins.scriptler.config;
+
+import com.thoughtworks.xstream.XStream;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.XmlFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Stores the metadata of every script in its own file, so changing a single script does not rewrite the metadata of
+ * all scripts. The directory listing serves as index. Files are written atomically by {@link XmlFile} and only if
+ * the metadata changed since it was last read or written.
+ * <p>
+ * Not thread safe, the callers synchronize on the {@link ScriptlerConfiguration}.
+ */
+final class ScriptMetadataStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ScriptMetadataStore.class.getName());
+
+    private static final String EXTENSION = ".xml";
+
+    private final XStream xstream;
+    private final Path directory;
+
+    /**
+     * id -> metadata last read or written, to skip writing unchanged metadata
+     */
+    private final Map<String, String> persisted = new HashMap<>();
+
+    ScriptMetadataStore(@NonNull XStream xstream, @NonNull Path directory) {
+        this.xstream = xstream;
+        this.directory = directory;
+    }
+
+    @NonNull
+    Set<Script> load() throws IOException {
+        Set<Script> scripts = new TreeSet<>();
+        persisted.clear();
+        if (!Files.isDirectory(directory)) {
+            return scripts;
+        }
+        List<Path> files;
+        try (Stream<Path> contents = Files.list(directory)) {
+            files = contents.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .toList();
+        }
+        for (Path file : files) {
+            Object read = new XmlFile(xstream, file.toFile()).read();
+            if (read instanceof Script script) {
+                scripts.add(script);
+                persisted.put(script.getId(), xstream.toXML(script));
+            } else {
+                LOGGER.log(Level.WARNING, "Ignoring unexpected content of {0}", file);
+            }
+        }
+        return scripts;
+    }
+
+    void save(@NonNull Collection<Script> scripts) throws IOException {
+        Files.createDirectories(directory);
+        Set<String> ids = new HashSet<>();
+        for (Script script : scripts) {
+            ids.add(script.getId());
+            String xml = xstream.toXML(script);
+            if (!xml.equals(persisted.get(script.getId()))) {
+                new XmlFile(xstream, getFile(script.getId()).toFile()).write(script);
+                persisted.put(script.getId(), xml);
+            }
+        }
+        for (String id : new ArrayList<>(persisted.keySet())) {
+            if (!ids.contains(id)) {
+                Files.deleteIfExists(getFile(id));
+                persisted.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Removes all stored metadata, e.g. after it got migrated back into a single file.
+     */
+    void delete() throws IOException {
+        persisted.clear();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Util.deleteRecursive(directory.toFile());
+    }
+
+    private Path getFile(String id) {
+        // ids are file names, but might contain characters not wanted in a flat directory
+        return directory.resolve(Util.rawEncode(id) + EXTENSION);
+    }
+}
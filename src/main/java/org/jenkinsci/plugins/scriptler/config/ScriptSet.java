@@ -23,7 +23,12 @@
  */
 package org.jenkinsci.plugins.scriptler.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -32,36 +37,45 @@ import java.util.TreeSet;
  *
  */
 public class ScriptSet {
-    // have it sorted
-    protected Set<Script> scriptSet = new TreeSet<>();
+    // have it sorted; a published set is never modified, writers publish a modified copy instead (copy-on-write), so
+    // readers can iterate it without locking
+    protected volatile Set<Script> scriptSet = new TreeSet<>();
+
+    /**
+     * derived from the published set on first access, recomputed as soon as another set got published
+     */
+    private transient volatile Views views;
 
     public Script getScriptById(String id) {
-        for (Script scr : scriptSet) {
-            if (scr.getId().equals(id)) {
-                return scr;
-            }
-        }
-        return null;
+        return getViews().byId.get(id);
     }
 
-    public void removeScript(String id) {
-        Script s = getScriptById(id);
-        scriptSet.remove(s);
+    public synchronized void removeScript(String id) {
+        Set<Script> copy = copyScripts();
+        copy.removeIf(scr -> scr.getId().equals(id));
+        scriptSet = copy;
     }
 
-    public void addOrReplace(Script script) {
+    public synchronized void addOrReplace(Script script) {
         if (script != null) {
+            Set<Script> copy = copyScripts();
             Script oldScript = this.getScriptById(script.getId());
             if (oldScript != null) {
                 Script mergedScript = merge(oldScript, script);
-                scriptSet.remove(script);
-                scriptSet.add(mergedScript);
+                copy.remove(script);
+                copy.add(mergedScript);
             } else {
-                scriptSet.add(script);
+                copy.add(script);
             }
+            scriptSet = copy;
         }
     }
 
+    private Set<Script> copyScripts() {
+        Set<Script> current = scriptSet;
+        return current == null ? new TreeSet<>() : new TreeSet<>(current);
+    }
+
     private String choose(String preferred, String fallback) {
         if (preferred == null || preferred.isEmpty()) {
             return fallback;
@@ -75,7 +89,7 @@ public class ScriptSet {
         String originCatalog = choose(newScript.originCatalog, origin.originCatalog);
         String originScript = choose(newScript.originScript, origin.originScript);
         String originDate = choose(newScript.originDate, origin.originDate);
-        return new Script(
+        Script merged = new Script(
                 newScript.getId(),
                 name,
                 comment,
@@ -86,30 +100,88 @@ public class ScriptSet {
                 newScript.nonAdministerUsing,
                 newScript.getParameters(),
                 newScript.onlyBuiltIn);
+        merged.copyOptionsFrom(newScript);
+        return merged;
     }
 
+    /**
+     * @return a consistent snapshot of the scripts, not affected by later modifications
+     */
     public final Set<Script> getScripts() {
-        if (scriptSet == null) {
-            scriptSet = new TreeSet<>();
+        Set<Script> current = scriptSet;
+        if (current == null) {
+            return Collections.emptySet();
         }
-        return Collections.unmodifiableSet(scriptSet);
+        return Collections.unmodifiableSet(current);
     }
 
+    /**
+     * @return the scripts allowed to be used by non administrators, sorted by id
+     */
     public final Set<Script> getUserScripts() {
-        Set<Script> userScripts = new TreeSet<>();
-        for (Script script : scriptSet) {
-            if (script.nonAdministerUsing) {
-                userScripts.add(script);
-            }
+        return getViews().userScripts;
+    }
+
+    /**
+     * @return all scripts, sorted by name
+     */
+    public final List<Script> getScriptsSortedByName() {
+        return getViews().sortedByName;
+    }
+
+    /**
+     * @return the scripts allowed to be used by non administrators, sorted by name
+     */
+    public final List<Script> getUserScriptsSortedByName() {
+        return getViews().userSortedByName;
+    }
+
+    private Views getViews() {
+        Set<Script> current = scriptSet;
+        Views currentViews = views;
+        if (currentViews == null || currentViews.source != current) {
+            currentViews = new Views(current);
+            views = currentViews;
         }
-        return userScripts;
+        return currentViews;
+    }
+
+    public synchronized void setScripts(Set<Script> scripts) {
+        scriptSet = new TreeSet<>(scripts);
     }
 
-    public void setScripts(Set<Script> scripts) {
-        if (scriptSet == null) {
-            scriptSet = new TreeSet<>();
+    /**
+     * Immutable views derived from a published set of scripts.
+     */
+    private static final class Views {
+        private final Set<Script> source;
+        private final Map<String, Script> byId;
+        private final Set<Script> userScripts;
+        private final List<Script> sortedByName;
+        private final List<Script> userSortedByName;
+
+        Views(Set<Script> source) {
+            this.source = source;
+            Collection<Script> scripts = source == null ? Set.of() : source;
+            Map<String, Script> ids = new HashMap<>();
+            Set<Script> users = new TreeSet<>();
+            for (Script script : scripts) {
+                ids.put(script.getId(), script);
+                // library scripts only provide classes to the other scripts
+                if (script.nonAdministerUsing && !script.isLibrary()) {
+                    users.add(script);
+                }
+            }
+            this.byId = ids;
+            this.userScripts = Collections.unmodifiableSet(users);
+            this.sortedByName = sortByName(scripts);
+            this.userSortedByName = sortByName(users);
+        }
+
+        private static List<Script> sortByName(Collection<Script> scripts) {
+            List<Script> sorted = new ArrayList<>(scripts);
+            sorted.sort(Script.COMPARATOR_BY_NAME);
+            return Collections.unmodifiableList(sorted);
         }
-        scriptSet.clear();
-        scriptSet.addAll(scripts);
     }
 }
@@ -63,6 +63,13 @@ public final class ScriptlerConfiguration extends ScriptSet implements Saveable,
 
     private boolean disableRemoteCatalog = false;
 
+    /**
+     * store the metadata of every script in its own file instead of in this file
+     */
+    private boolean shardedMetadata = false;
+
+    private transient ScriptMetadataStore metadataStore;
+
     public ScriptlerConfiguration(SortedSet<Script> scripts) {
         if (scripts != null) {
             setScripts(scripts);
@@ -81,10 +88,36 @@ public final class ScriptlerConfiguration extends ScriptSet implements Saveable,
 
     public synchronized void save() throws IOException {
         if (BulkChange.contains(this)) return;
-        getXmlFile().write(this);
+        if (shardedMetadata) {
+            // the scripts first, so they are never lost if writing the settings fails
+            getMetadataStore().save(getScripts());
+            getXmlFile().write(withoutScripts());
+        } else {
+            getXmlFile().write(this);
+            getMetadataStore().delete();
+        }
         SaveableListener.fireOnChange(this, getXmlFile());
     }
 
+    /**
+     * @return a copy of the settings, without any script
+     */
+    private ScriptlerConfiguration withoutScripts() {
+        ScriptlerConfiguration settings = new ScriptlerConfiguration(null);
+        settings.disableRemoteCatalog = disableRemoteCatalog;
+        settings.disbableRemoteCatalog = null;
+        settings.shardedMetadata = shardedMetadata;
+        return settings;
+    }
+
+    private synchronized ScriptMetadataStore getMetadataStore() {
+        if (metadataStore == null) {
+            metadataStore = new ScriptMetadataStore(
+                    XSTREAM, ScriptlerManagement.getScriptlerHomeDirectory2().resolve("metadata"));
+        }
+        return metadataStore;
+    }
+
     public static XmlFile getXmlFile() {
         return new XmlFile(
                 XSTREAM,
@@ -99,7 +132,12 @@ public final class ScriptlerConfiguration extends ScriptSet implements Saveable,
             // As it might be that we have an unsorted set, we ensure the
             // sorting at load time.
             ScriptlerConfiguration sc = (ScriptlerConfiguration) f.read();
-            SortedSet<Script> sorted = new TreeSet<>(sc.getScripts());
+            SortedSet<Script> sorted = new TreeSet<>();
+            if (sc.shardedMetadata) {
+                sorted.addAll(sc.getMetadataStore().load());
+            }
+            // scripts still in the single file which did not get migrated yet
+            sorted.addAll(sc.getScripts());
             sc.setScripts(sorted);
             return sc;
         } else {
@@ -139,6 +177,18 @@ public final class ScriptlerConfiguration extends ScriptSet implements Saveable,
         this.disableRemoteCatalog = disableRemoteCatalog;
     }
 
+    public boolean isShardedMetadata() {
+        return shardedMetadata;
+    }
+
+    /**
+     * Switches between storing the metadata of all scripts in <code>scriptler.xml</code> and one file per script in
+     * the <code>metadata</code> directory. The metadata is migrated by the next {@link #save()}.
+     */
+    public void setShardedMetadata(boolean shardedMetadata) {
+        this.shardedMetadata = shardedMetadata;
+    }
+
     /**
      * @deprecated Use {@link #isDisableRemoteCatalog()} instead.
      */
@@ -159,13 +209,11 @@ public final class ScriptlerConfiguration extends ScriptSet implements Saveable,
     public List<ScriptAndApproved> getSortedScripts() {
         List<Script> sortedScripts;
         if (Jenkins.get().hasPermission(ScriptlerPermissions.CONFIGURE)) {
-            sortedScripts = new ArrayList<>(this.getScripts());
+            sortedScripts = this.getScriptsSortedByName();
         } else {
-            sortedScripts = new ArrayList<>(this.getUserScripts());
+            sortedScripts = this.getUserScriptsSortedByName();
         }
 
-        sortedScripts.sort(Script.COMPARATOR_BY_NAME);
-
         List<ScriptAndApproved> result = new ArrayList<>(sortedScripts.size());
         for (Script script : sortedScripts) {
             Script scriptWithSrc = ScriptHelper.getScript(script.getId(), true);
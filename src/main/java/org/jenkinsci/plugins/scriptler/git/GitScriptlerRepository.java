@@ -33,6 +33,10 @@ import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
 import org.jenkinsci.plugins.scriptler.ScriptlerPermissions;
 import org.jenkinsci.plugins.scriptler.SyncUtil;
 import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
+import org.jenkinsci.plugins.scriptler.util.ScriptHelper;
+import org.jenkinsci.plugins.scriptler.util.ScriptLibrary;
+import org.jenkinsci.plugins.scriptler.util.ScriptPrecompiler;
+import org.jenkinsci.plugins.scriptler.util.ScriptSearchIndex;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
@@ -108,10 +112,14 @@ public class GitScriptlerRepository extends FileBackedHttpGitRepository implemen
     @Override
     protected void updateWorkspace(Repository repo) throws IOException, GitAPIException {
         super.updateWorkspace(repo);
+        ScriptHelper.invalidateCachedSources();
         final ScriptlerConfiguration cfg =
                 ExtensionList.lookupSingleton(ScriptlerManagement.class).getConfiguration();
         SyncUtil.syncDirWithCfg(ScriptlerManagement.getScriptDirectory2(), cfg);
         cfg.save();
+        ScriptSearchIndex.get().reindex(cfg, ScriptlerManagement.getScriptDirectory2());
+        ScriptLibrary.get().rebuild(cfg, ScriptlerManagement.getScriptDirectory2());
+        ScriptPrecompiler.scheduleAll(cfg, ScriptlerManagement.getScriptDirectory2());
     }
 
     /**
@@ -164,6 +172,7 @@ public class GitScriptlerRepository extends FileBackedHttpGitRepository implemen
             if (r.getRepositoryState().canResetHead()) {
                 try {
                     git.reset().setMode(ResetType.HARD).setRef("master").call();
+                    ScriptHelper.invalidateCachedSources();
                 } catch (CheckoutConflictException e) {
                     throw new IOException("not able to perform a hard reset", e);
                 } catch (GitAPIException e) {
@@ -38,6 +38,13 @@ public class CentralScriptJsonCatalog extends Downloadable {
         return JSONArray.toCollection(d.getJSONArray("list"), config);
     }
 
+    /**
+     * @return the time the catalog data was last downloaded, <code>0</code> if it was never downloaded
+     */
+    public long getDataTimestamp() {
+        return getDataFile().file.lastModified();
+    }
+
     public static CentralScriptJsonCatalog getCatalog() {
         return ExtensionList.lookupSingleton(CentralScriptJsonCatalog.class);
     }
@@ -1,14 +1,19 @@
 package org.jenkinsci.plugins.scriptler.tokenmacro;
 
+import com.google.common.collect.ListMultimap;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.model.AbstractBuild;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.remoting.Channel;
 import hudson.remoting.ChannelClosedException;
 import hudson.remoting.VirtualChannel;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.scriptler.Messages;
 import org.jenkinsci.plugins.scriptler.config.Script;
@@ -20,15 +25,74 @@ import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 
 /**
  * TokenMacro that allows the execution of a scriptler script an any arbitrary location supporting TokenMacros e.g. <code>${SCRIPTLER, scriptId="superscript.groovy"}</code>
+ * <p>
+ * All further arguments are bound to the parameters declared by the script, e.g.
+ * <code>${SCRIPTLER, scriptId="superscript.groovy", greeting="hello"}</code>. Declared parameters not passed as
+ * argument get their default value.
+ * <p>
+ * The output can be cached by adding e.g. <code>cache="build"</code>, see {@link ScriptlerTokenMacroCache}.
  *
  * @author Dominik Bartholdi (imod)
  */
 @Extension
 public class ScriptlerTokenMacro extends DataBoundTokenMacro {
 
+    private static final String SCRIPT_ID = "scriptId";
+    private static final String CACHE = "cache";
+
     @Parameter
     public String scriptId;
 
+    /**
+     * Opt-in caching of the output: <code>build</code>, <code>node</code> or a number of seconds.
+     */
+    @Parameter
+    public String cache;
+
+    /**
+     * the arguments of the macro to be bound to the parameters of the script
+     */
+    private Map<String, String> scriptArguments = Map.of();
+
+    @Override
+    public String evaluate(
+            AbstractBuild<?, ?> context,
+            TaskListener listener,
+            String macroName,
+            Map<String, String> arguments,
+            ListMultimap<String, String> argumentMultimap)
+            throws MacroEvaluationException, IOException, InterruptedException {
+        return bind(arguments).evaluate(context, listener, macroName);
+    }
+
+    @Override
+    public String evaluate(
+            Run<?, ?> run,
+            FilePath workspace,
+            TaskListener listener,
+            String macroName,
+            Map<String, String> arguments,
+            ListMultimap<String, String> argumentMultimap)
+            throws MacroEvaluationException, IOException, InterruptedException {
+        if (run instanceof AbstractBuild<?, ?> build) {
+            return bind(arguments).evaluate(build, listener, macroName);
+        }
+        throw new MacroEvaluationException(Messages.tokenmacro_UnsupportedRun(run.getExternalizableId()));
+    }
+
+    /**
+     * Creates a copy of this macro with the given arguments, the ones not known to the macro itself are kept to be
+     * passed to the script.
+     */
+    private ScriptlerTokenMacro bind(Map<String, String> arguments) {
+        ScriptlerTokenMacro copy = new ScriptlerTokenMacro();
+        Map<String, String> remaining = new HashMap<>(arguments);
+        copy.scriptId = remaining.remove(SCRIPT_ID);
+        copy.cache = remaining.remove(CACHE);
+        copy.scriptArguments = remaining;
+        return copy;
+    }
+
     @Override
     public String evaluate(AbstractBuild<?, ?> context, TaskListener listener, String macroName)
             throws MacroEvaluationException, IOException, InterruptedException {
@@ -39,14 +103,31 @@ public class ScriptlerTokenMacro extends DataBoundTokenMacro {
         } else if (!script.nonAdministerUsing) {
             listener.getLogger().println(Messages.tokenmacro_AdminScriptOnly(scriptId));
             throw new MacroEvaluationException(Messages.tokenmacro_AdminScriptOnly(scriptId));
+        } else if (script.isLibrary()) {
+            throw new MacroEvaluationException(Messages.scriptIsLibrary(scriptId));
         }
 
+        final List<org.jenkinsci.plugins.scriptler.config.Parameter> parameters = bindParameters(script);
+
         String scriptText = script.getScriptText();
+        final ScriptlerTokenMacroCache.Scope scope = ScriptlerTokenMacroCache.Scope.parse(cache);
+        String cacheKey = null;
+        if (scope != null && scriptText != null) {
+            cacheKey = scope.key(context, ScriptHelper.digest(scriptText) + ScriptHelper.digestParameters(parameters));
+            String cached = ScriptlerTokenMacroCache.get().get(cacheKey, System.currentTimeMillis());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         VirtualChannel channel;
         GroovyScript groovyScript;
         if (script.onlyBuiltIn || Jenkins.get().equals(context.getBuiltOn())) {
             channel = FilePath.localChannel;
-            groovyScript = new ControllerGroovyScript(scriptText, List.of(), true, listener, null, context);
+            ControllerGroovyScript controllerScript =
+                    new ControllerGroovyScript(scriptText, parameters, true, listener, null, context);
+            controllerScript.setScriptId(script.getId());
+            groovyScript = controllerScript;
         } else {
             FilePath remoteFilePath = context.getWorkspace();
             if (remoteFilePath == null) {
@@ -54,11 +135,33 @@ public class ScriptlerTokenMacro extends DataBoundTokenMacro {
                 throw new ChannelClosedException((Channel) null, null);
             }
             channel = remoteFilePath.getChannel();
-            groovyScript = new GroovyScript(scriptText, List.of(), true, listener);
+            groovyScript = new GroovyScript(scriptText, parameters, true, listener);
         }
 
+        groovyScript.setCompileStatic(script.isCompileStatic());
         Object output = channel.call(groovyScript);
-        return output != null ? output.toString() : "";
+        String result = output != null ? output.toString() : "";
+        if (cacheKey != null) {
+            ScriptlerTokenMacroCache.get().put(cacheKey, result, scope, System.currentTimeMillis());
+        }
+        return result;
+    }
+
+    private List<org.jenkinsci.plugins.scriptler.config.Parameter> bindParameters(Script script)
+            throws MacroEvaluationException {
+        Map<String, String> unbound = new HashMap<>(scriptArguments);
+        List<org.jenkinsci.plugins.scriptler.config.Parameter> parameters = new ArrayList<>();
+        for (org.jenkinsci.plugins.scriptler.config.Parameter declared : script.getParameters()) {
+            String value = unbound.containsKey(declared.getName())
+                    ? unbound.remove(declared.getName())
+                    : declared.getValue();
+            parameters.add(new org.jenkinsci.plugins.scriptler.config.Parameter(declared.getName(), value));
+        }
+        if (!unbound.isEmpty()) {
+            throw new MacroEvaluationException(
+                    Messages.tokenmacro_UndeclaredParameter(scriptId, String.join(", ", unbound.keySet())));
+        }
+        return parameters;
     }
 
     @Override
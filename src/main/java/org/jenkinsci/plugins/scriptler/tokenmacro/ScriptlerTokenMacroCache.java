@@ -0,0 +1,157 @@
+package org.jenkinsci.plugins.scriptler.tokenmacro;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.AbstractBuild;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.apache.commons.collections.map.LRUMap;
+import org.jenkinsci.plugins.scriptler.Messages;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+
+/**
+ * Memoizes the output of {@link ScriptlerTokenMacro} expansions which opted in via the <code>cache</code> parameter.
+ * Entries are keyed by the digest of the script source and the requested scope, so changing a script never returns a
+ * stale result.
+ */
+public final class ScriptlerTokenMacroCache {
+
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(ScriptlerTokenMacroCache.class.getName() + ".maxEntries", 1000);
+
+    /**
+     * Time to live of the outputs cached per node: unlike a build, a node never ends, so they have to expire.
+     */
+    private static final long NODE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            SystemProperties.getLong(ScriptlerTokenMacroCache.class.getName() + ".nodeTtlSeconds", 3600L));
+
+    private static final ScriptlerTokenMacroCache INSTANCE = new ScriptlerTokenMacroCache(MAX_ENTRIES);
+
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    ScriptlerTokenMacroCache(int maxEntries) {
+        entries = Collections.synchronizedMap(new LRUMap(maxEntries));
+    }
+
+    public static ScriptlerTokenMacroCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key the key computed by {@link Scope#key(AbstractBuild, String)}
+     * @return the cached output, <code>null</code> if there is none or it expired
+     */
+    @CheckForNull
+    String get(@NonNull String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= now) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    void put(@NonNull String key, @NonNull String value, @NonNull Scope scope, long now) {
+        entries.put(key, new Entry(value, scope.expiresAt(now)));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the percentage of lookups answered from the cache
+     */
+    public int getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (int) (h * 100 / total);
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    private record Entry(String value, long expiresAt) {}
+
+    /**
+     * The scope a cached output is shared in.
+     */
+    static final class Scope {
+        private final String name;
+        private final long ttlMillis;
+
+        private Scope(String name, long ttlMillis) {
+            this.name = name;
+            this.ttlMillis = ttlMillis;
+        }
+
+        /**
+         * Parses the value of the <code>cache</code> macro parameter: <code>build</code> shares the output within a
+         * build, <code>node</code> between all builds on the same node for an hour (by default) and a number of
+         * seconds (optionally suffixed by <code>s</code>) between all builds for that time.
+         *
+         * @return the scope, <code>null</code> if caching was not requested
+         */
+        @CheckForNull
+        static Scope parse(@CheckForNull String value) throws MacroEvaluationException {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            switch (normalized) {
+                case "build":
+                    return new Scope(normalized, 0);
+                case "node":
+                    return new Scope(normalized, NODE_TTL_MILLIS);
+                default:
+                    String seconds = normalized.endsWith("s")
+                            ? normalized.substring(0, normalized.length() - 1)
+                            : normalized;
+                    try {
+                        long ttl = Long.parseLong(seconds);
+                        if (ttl > 0) {
+                            return new Scope("ttl", TimeUnit.SECONDS.toMillis(ttl));
+                        }
+                    } catch (NumberFormatException e) {
+                        // reported below
+                    }
+                    throw new MacroEvaluationException(Messages.tokenmacro_InvalidCacheScope(value));
+            }
+        }
+
+        @NonNull
+        String key(@NonNull AbstractBuild<?, ?> build, @NonNull String discriminator) {
+            String scopeKey =
+                    switch (name) {
+                        case "build" -> build.getExternalizableId();
+                        case "node" -> build.getBuiltOnStr();
+                        default -> Long.toString(ttlMillis);
+                    };
+            return name + ':' + scopeKey + ':' + discriminator;
+        }
+
+        long expiresAt(long now) {
+            return ttlMillis == 0 ? Long.MAX_VALUE : now + ttlMillis;
+        }
+    }
+}
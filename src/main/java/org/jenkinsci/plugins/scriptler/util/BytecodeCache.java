@@ -0,0 +1,386 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import hudson.PluginWrapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.commons.collections.map.LRUMap;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+
+/**
+ * Keeps the bytecode of compiled scripts in <code>JENKINS_HOME/scriptler/bytecode</code>, so the scripts do not have
+ * to be compiled again after a restart of the controller. Agents ask for the bytecode when they have no compiled
+ * instance of a script, see {@link GroovyScript}.
+ * <p>
+ * The entries are addressed by the digest of the source, the compiler options and the versions of Groovy, Jenkins,
+ * the plugins and the {@link ScriptLibrary} the script got compiled against, so they never have to be invalidated.
+ * Only the bytecode of saved scripts is written to disk, the one of scripts run from the console is just kept in
+ * memory. The least recently used entries are removed once there are more than <code>maxEntries</code> of them; their
+ * order is tracked in memory, the directory is only listed once.
+ * <p>
+ * Only approved scripts must be compiled, as compiling Groovy code can already execute code.
+ */
+public final class BytecodeCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BytecodeCache.class.getName());
+
+    /**
+     * to be increased whenever the way scripts get compiled or stored changes
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String EXTENSION = ".jar";
+
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(BytecodeCache.class.getName() + ".maxEntries", 500);
+
+    private static final int MEMORY_ENTRIES =
+            SystemProperties.getInteger(BytecodeCache.class.getName() + ".memoryEntries", 50);
+
+    private static BytecodeCache instance;
+
+    @CheckForNull
+    private static volatile ClasspathVersion classpathVersion;
+
+    private final Path directory;
+    private final int maxEntries;
+    private final Map<String, CompiledScript> memory;
+
+    /**
+     * the files on disk by key, the least recently used first; loaded on first use
+     */
+    @CheckForNull
+    private LinkedHashMap<String, Path> stored;
+
+    @SuppressWarnings("unchecked")
+    BytecodeCache(@NonNull Path directory, int maxEntries, int memoryEntries) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.memory = Collections.synchronizedMap(new LRUMap(memoryEntries));
+    }
+
+    public static synchronized BytecodeCache get() {
+        if (instance == null) {
+            instance = new BytecodeCache(
+                    ScriptlerManagement.getScriptlerHomeDirectory2().resolve("bytecode"), MAX_ENTRIES, MEMORY_ENTRIES);
+        }
+        return instance;
+    }
+
+    /**
+     * @param source the script, must be approved
+     * @param compileStatic whether to compile the script with <code>@CompileStatic</code>
+     * @param libraryVersion the version of the {@link ScriptLibrary} on the classpath of the class loader
+     * @param classLoader the class loader to compile the script with
+     * @param persist whether to write the bytecode to disk, i.e. whether the source is the one of a saved script
+     * @return the cached bytecode, or the bytecode of the script compiled right now
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script does not compile
+     */
+    @NonNull
+    public CompiledScript getOrCompile(
+            @NonNull String source,
+            boolean compileStatic,
+            @NonNull String libraryVersion,
+            @NonNull ClassLoader classLoader,
+            boolean persist) {
+        final String key = key(source, compileStatic, libraryVersion);
+        CompiledScript compiled = lookup(key);
+        if (compiled == null) {
+            compiled = compile(className(key), source, compileStatic, classLoader);
+            memory.put(key, compiled);
+            if (persist) {
+                store(key, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * @return the cached bytecode of the given script, <code>null</code> if it was not compiled yet
+     */
+    @CheckForNull
+    public CompiledScript lookup(@NonNull String source, boolean compileStatic, @NonNull String libraryVersion) {
+        return lookup(key(source, compileStatic, libraryVersion));
+    }
+
+    @CheckForNull
+    private CompiledScript lookup(String key) {
+        final Path file;
+        synchronized (this) {
+            // keeps the entry from being evicted
+            file = getStored().get(key);
+        }
+        CompiledScript compiled = memory.get(key);
+        if (compiled != null || file == null) {
+            return compiled;
+        }
+        try {
+            compiled = read(file, className(key));
+            // keeps the order of the entries after a restart
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "discarding the unreadable bytecode " + file);
+            synchronized (this) {
+                getStored().remove(key);
+            }
+            deleteQuietly(file);
+            return null;
+        }
+        memory.put(key, compiled);
+        return compiled;
+    }
+
+    private void store(String key, CompiledScript compiled) {
+        final Path file = directory.resolve(key + EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            final Path tmp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                write(tmp, compiled);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "not able to store the bytecode of " + compiled.getMainClass());
+            return;
+        }
+        final List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            final LinkedHashMap<String, Path> entries = getStored();
+            entries.put(key, file);
+            final Iterator<Path> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        evicted.forEach(BytecodeCache::deleteQuietly);
+    }
+
+    /**
+     * @return the files on disk in access order, read from the directory the first time
+     */
+    @NonNull
+    private LinkedHashMap<String, Path> getStored() {
+        if (stored == null) {
+            stored = new LinkedHashMap<>(16, 0.75f, true);
+            if (Files.isDirectory(directory)) {
+                try {
+                    final List<Path> files;
+                    try (Stream<Path> list = Files.list(directory)) {
+                        files = list.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                                .toList();
+                    }
+                    final Map<Path, FileTime> lastUsed = new HashMap<>();
+                    for (Path file : files) {
+                        lastUsed.put(file, Files.getLastModifiedTime(file));
+                    }
+                    for (Path file : files.stream()
+                            .sorted(Comparator.comparing(lastUsed::get))
+                            .toList()) {
+                        stored.put(keyOf(file), file);
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, e, () -> "not able to list the bytecode in " + directory);
+                }
+            }
+        }
+        return stored;
+    }
+
+    private static String keyOf(Path file) {
+        final String name = file.getFileName().toString();
+        return name.substring(0, name.length() - EXTENSION.length());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> "not able to delete " + file);
+        }
+    }
+
+    @NonNull
+    static String key(@NonNull String source, boolean compileStatic, @NonNull String libraryVersion) {
+        return ScriptHelper.digest(FORMAT_VERSION + "\n" + GroovySystem.getVersion() + "\n" + getClasspathVersion()
+                + "\n" + libraryVersion + "\n" + compileStatic + "\n" + source);
+    }
+
+    /**
+     * the bytecode of statically compiled scripts depends on the signatures of the classes used by the script; the
+     * version is computed again once the number of plugins changes, as plugins are only updated or removed on a
+     * restart, but may be installed dynamically
+     */
+    private static String getClasspathVersion() {
+        final Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return "";
+        }
+        final List<PluginWrapper> plugins = jenkins.getPluginManager().getPlugins();
+        final ClasspathVersion cached = classpathVersion;
+        if (cached != null && cached.plugins() == plugins.size()) {
+            return cached.version();
+        }
+        final String version = Jenkins.VERSION
+                + plugins.stream()
+                        .filter(PluginWrapper::isActive)
+                        .map(plugin -> plugin.getShortName() + ":" + plugin.getVersion())
+                        .sorted()
+                        .collect(Collectors.joining(",", "[", "]"));
+        classpathVersion = new ClasspathVersion(plugins.size(), version);
+        return version;
+    }
+
+    private record ClasspathVersion(int plugins, String version) {}
+
+    private static String className(String key) {
+        return "Script_" + key.substring(0, 32);
+    }
+
+    private static CompiledScript compile(
+            String className, String source, boolean compileStatic, ClassLoader classLoader) {
+        final CompilerConfiguration configuration = GroovyScript.createConfiguration(compileStatic);
+        final HashMap<String, byte[]> classes = new HashMap<>();
+        try (GroovyClassLoader groovyClassLoader = new GroovyClassLoader(classLoader, configuration)) {
+            final CompilationUnit unit = new CompilationUnit(configuration, null, groovyClassLoader);
+            unit.addSource(className + ".groovy", source);
+            unit.compile(Phases.CLASS_GENERATION);
+            for (Object generated : unit.getClasses()) {
+                final GroovyClass groovyClass = (GroovyClass) generated;
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> "not able to close the class loader used to compile " + className);
+        }
+        return new CompiledScript(className, classes);
+    }
+
+    private static void write(Path file, CompiledScript compiled) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file);
+                ZipOutputStream zip = new ZipOutputStream(os)) {
+            for (Map.Entry<String, byte[]> entry : compiled.classes.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey().replace('.', '/') + ".class"));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static CompiledScript read(Path file, String mainClass) throws IOException {
+        final HashMap<String, byte[]> classes = new HashMap<>();
+        try (InputStream is = Files.newInputStream(file);
+                ZipInputStream zip = new ZipInputStream(is)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                final String name = entry.getName();
+                if (!entry.isDirectory() && name.endsWith(".class")) {
+                    classes.put(
+                            name.substring(0, name.length() - ".class".length()).replace('/', '.'),
+                            zip.readAllBytes());
+                }
+            }
+        }
+        if (!classes.containsKey(mainClass)) {
+            throw new IOException(mainClass + " is missing");
+        }
+        return new CompiledScript(mainClass, classes);
+    }
+
+    /**
+     * The classes a script got compiled to, ready to be sent to an agent.
+     */
+    public static final class CompiledScript implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String mainClass;
+        private final HashMap<String, byte[]> classes;
+
+        CompiledScript(@NonNull String mainClass, @NonNull HashMap<String, byte[]> classes) {
+            this.mainClass = mainClass;
+            this.classes = classes;
+        }
+
+        @NonNull
+        public String getMainClass() {
+            return mainClass;
+        }
+
+        /**
+         * Defines the classes of the script in a new class loader and creates an instance of the script.
+         *
+         * @param parent the class loader to resolve all the other classes used by the script
+         */
+        @NonNull
+        public groovy.lang.Script newScript(@NonNull ClassLoader parent) {
+            try {
+                final Class<?> scriptClass = new BytecodeClassLoader(parent, classes).loadClass(mainClass);
+                return InvokerHelper.createScript(scriptClass, new Binding());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(mainClass + " is missing", e);
+            }
+        }
+    }
+
+    private static final class BytecodeClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        BytecodeClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            final byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                return super.loadClass(name, resolve);
+            }
+            // the classes of the script are defined first, so their names never end up in the misses of the parent
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    c = defineClass(name, bytes, 0, bytes.length);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Buffers the output of a script running on an agent, so printing many small lines does not send a remoting packet
+ * per line or flush to the build log of the controller. The buffer is written once it is full and at the latest
+ * <code>flushInterval</code> milliseconds after the first write into it; flushing only schedules that write.
+ * Closing the stream writes what is left, without closing the underlying stream.
+ */
+final class CoalescingOutputStream extends OutputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(CoalescingOutputStream.class.getName());
+
+    static final int BUFFER_SIZE =
+            SystemProperties.getInteger(CoalescingOutputStream.class.getName() + ".bufferSize", 16384);
+
+    static final long FLUSH_INTERVAL =
+            SystemProperties.getLong(CoalescingOutputStream.class.getName() + ".flushInterval", 1000L);
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Scriptler output flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final long flushInterval;
+    private int count;
+    private ScheduledFuture<?> scheduledFlush;
+
+    CoalescingOutputStream(@NonNull OutputStream out) {
+        this(out, BUFFER_SIZE, FLUSH_INTERVAL);
+    }
+
+    CoalescingOutputStream(@NonNull OutputStream out, int bufferSize, long flushInterval) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeBuffer();
+        }
+        buffer[count++] = (byte) b;
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (len >= buffer.length) {
+            writeBuffer();
+            out.write(b, off, len);
+            out.flush();
+            return;
+        }
+        if (len > buffer.length - count) {
+            writeBuffer();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        writeBuffer();
+        out.flush();
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush == null && count > 0) {
+            scheduledFlush = FLUSHER.schedule(this::scheduledFlush, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void scheduledFlush() {
+        scheduledFlush = null;
+        try {
+            writeBuffer();
+            out.flush();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "not able to flush the output of a script", e);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
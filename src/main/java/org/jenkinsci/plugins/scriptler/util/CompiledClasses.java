@@ -0,0 +1,27 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The classes compiled on the controller, exported to the agents running a {@link GroovyScript}. An agent only asks
+ * for them when it misses them, instead of getting them sent along with every script.
+ */
+@Restricted(NoExternalUse.class)
+public interface CompiledClasses {
+
+    /**
+     * @return the bytecode the controller compiled the given script to already, <code>null</code> if there is none
+     */
+    @CheckForNull
+    BytecodeCache.CompiledScript getBytecode(
+            @NonNull String source, boolean compileStatic, @NonNull String libraryVersion);
+
+    /**
+     * @return the library of the given version, <code>null</code> if the library changed meanwhile
+     */
+    @CheckForNull
+    ScriptLibrary.Compiled getLibrary(@NonNull String version);
+}
@@ -1,5 +1,6 @@
 package org.jenkinsci.plugins.scriptler.util;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import groovy.lang.GroovyShell;
 import hudson.Launcher;
@@ -8,6 +9,7 @@ import hudson.model.TaskListener;
 import java.io.Serial;
 import java.util.Collection;
 import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.scriptler.Messages;
 import org.jenkinsci.plugins.scriptler.config.Parameter;
 
 public class ControllerGroovyScript extends GroovyScript {
@@ -17,6 +19,16 @@ public class ControllerGroovyScript extends GroovyScript {
     private final transient AbstractBuild<?, ?> build;
     private final transient Launcher launcher;
 
+    /**
+     * bound as <code>scriptler</code>, set if this script is called by another one
+     */
+    private transient ScriptInvoker invoker;
+
+    /**
+     * the id of the saved script, keys its <code>memo</code> along with the source
+     */
+    private transient String scriptId;
+
     /**
      * This constructor can only be used when the script is executed on the built-in node, because launcher and build
      * can not be transferred to an agent and therefore the execution will fail
@@ -39,11 +51,35 @@ public class ControllerGroovyScript extends GroovyScript {
         this.launcher = launcher;
     }
 
+    void setInvoker(@NonNull ScriptInvoker invoker) {
+        this.invoker = invoker;
+    }
+
+    /**
+     * @param scriptId the id of the saved script, <code>null</code> for a script run from the console
+     */
+    public void setScriptId(@CheckForNull String scriptId) {
+        this.scriptId = scriptId;
+    }
+
     @Override
     public ClassLoader getClassLoader() {
         return Jenkins.get().getPluginManager().uberClassLoader;
     }
 
+    /**
+     * Takes the bytecode from the {@link BytecodeCache}, so the script is not compiled again after a restart. Only the
+     * bytecode of saved scripts is written to disk, the one of console scripts is kept in memory.
+     */
+    @NonNull
+    @Override
+    protected groovy.lang.Script parse(
+            @NonNull GroovyShell shell, @NonNull ClassLoader classLoader, String libraryVersion) {
+        return BytecodeCache.get()
+                .getOrCompile(getScriptText(), isCompileStatic(), libraryVersion, classLoader, scriptId != null)
+                .newScript(classLoader);
+    }
+
     @Override
     protected void setShellVariables(@NonNull GroovyShell shell) {
         super.setShellVariables(shell);
@@ -53,5 +89,20 @@ public class ControllerGroovyScript extends GroovyScript {
         if (launcher != null) {
             shell.setVariable("launcher", launcher);
         }
+        bindUnlessDeclared(
+                shell, "scriptler", invoker != null ? invoker : new ScriptInvoker(getListener(), launcher, build));
+        bindUnlessDeclared(shell, "memo", ScriptMemo.forScript(scriptId, getScriptText()));
+        bindUnlessDeclared(shell, "jenkinsModel", JenkinsModelQueries.get());
+    }
+
+    /**
+     * Binds a variable added after parameters could already be named like it, so a parameter of the same name wins.
+     */
+    private void bindUnlessDeclared(@NonNull GroovyShell shell, @NonNull String name, @NonNull Object value) {
+        if (shell.getContext().hasVariable(name)) {
+            getListener().getLogger().println(Messages.parameterHidesVariable(name));
+        } else {
+            shell.setVariable(name, value);
+        }
     }
 }
@@ -0,0 +1,346 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+
+/**
+ * Records the ad-hoc runs of scripts in <code>JENKINS_HOME/scriptler/executions</code>: one JSON line per run is
+ * appended to <code>index.jsonl</code> and the output of the run is stored gzip compressed next to it. Nothing is kept
+ * in memory, the index is read page by page.
+ * <p>
+ * The runs older than <code>maxAge</code> days and the oldest runs beyond <code>maxSize</code> bytes of compressed
+ * outputs are removed when the first run is recorded after a start, and then every {@value #COMPACTION_INTERVAL} runs.
+ */
+@Extension
+public final class ExecutionHistory {
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutionHistory.class.getName());
+
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(
+            SystemProperties.getInteger(ExecutionHistory.class.getName() + ".maxAge", 30));
+
+    private static final long MAX_SIZE =
+            SystemProperties.getLong(ExecutionHistory.class.getName() + ".maxSize", 100L * 1024 * 1024);
+
+    static final int COMPACTION_INTERVAL = 100;
+
+    private static final String INDEX = "index.jsonl";
+    private static final String EXTENSION = ".log.gz";
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+    private final Path directory;
+    private final long maxAge;
+    private final long maxSize;
+
+    // the runs recorded before a restart are compacted as soon as the first run is recorded
+    private int runsSinceCompaction = COMPACTION_INTERVAL;
+
+    public ExecutionHistory() {
+        this(ScriptlerManagement.getScriptlerHomeDirectory2().resolve("executions"), MAX_AGE, MAX_SIZE);
+    }
+
+    ExecutionHistory(@NonNull Path directory, long maxAge, long maxSize) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    public static ExecutionHistory get() {
+        return ExtensionList.lookupSingleton(ExecutionHistory.class);
+    }
+
+    /**
+     * Starts recording a run of the current user.
+     *
+     * @param scriptId the id of the script run
+     * @param source the source run, which may differ from the stored script
+     * @param nodes the nodes the script is run on
+     * @return the stream to write the output of the run to, to be closed with {@link Recording#finish(boolean)}
+     */
+    @NonNull
+    public Recording start(@NonNull String scriptId, @NonNull String source, @NonNull List<String> nodes) {
+        return start(scriptId, source, nodes, Jenkins.getAuthentication2().getName());
+    }
+
+    @NonNull
+    Recording start(
+            @NonNull String scriptId, @NonNull String source, @NonNull List<String> nodes, @NonNull String user) {
+        return new Recording(UUID.randomUUID().toString(), scriptId, ScriptHelper.digest(source), user, nodes);
+    }
+
+    /**
+     * @param offset the number of runs to skip, the newest first
+     * @param limit the maximum number of runs to return
+     * @return the recorded runs, the newest first
+     */
+    @NonNull
+    public synchronized Page getRuns(int offset, int limit) throws IOException {
+        final Path index = directory.resolve(INDEX);
+        if (!Files.isRegularFile(index) || limit <= 0) {
+            return new Page(0, List.of());
+        }
+        // only the lines of the requested page and the ones above it are kept while reading
+        final int window = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        final Deque<String> newest = new ArrayDeque<>();
+        int total = 0;
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                total++;
+                if (newest.size() == window) {
+                    newest.removeFirst();
+                }
+                newest.addLast(line);
+            }
+        }
+        final List<JSONObject> runs = new ArrayList<>();
+        final List<String> lines = new ArrayList<>(newest);
+        Collections.reverse(lines);
+        for (String line : lines.subList(Math.min(offset, lines.size()), lines.size())) {
+            try {
+                runs.add(JSONObject.fromObject(line));
+            } catch (JSONException e) {
+                LOGGER.log(Level.FINE, e, () -> "skipping the corrupt line " + line);
+            }
+        }
+        return new Page(total, runs);
+    }
+
+    /**
+     * @return the file with the compressed output of the given run, <code>null</code> if there is none
+     */
+    @CheckForNull
+    public Path getOutput(@CheckForNull String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            return null;
+        }
+        final Path file = directory.resolve(id + EXTENSION);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private synchronized void append(JSONObject run) throws IOException {
+        Files.createDirectories(directory);
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                directory.resolve(INDEX),
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writer.write(run.toString());
+            writer.newLine();
+        }
+        if (++runsSinceCompaction >= COMPACTION_INTERVAL) {
+            runsSinceCompaction = 0;
+            compact(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Removes the runs older than the maximum age and the oldest ones beyond the maximum size.
+     */
+    synchronized void compact(long now) throws IOException {
+        final Path index = directory.resolve(INDEX);
+        if (!Files.isRegularFile(index)) {
+            return;
+        }
+        long size = 0;
+        try (Stream<String> lines = Files.lines(index, StandardCharsets.UTF_8)) {
+            size = lines.map(ExecutionHistory::parse)
+                    .mapToLong(run -> run == null ? 0 : run.optLong("size"))
+                    .sum();
+        }
+        final long expired = now - maxAge;
+        final Path tmp = Files.createTempFile(directory, INDEX, ".tmp");
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8);
+                    BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    final JSONObject run = parse(line);
+                    if (run == null) {
+                        continue;
+                    }
+                    if (size > maxSize || run.optLong("start") < expired) {
+                        size -= run.optLong("size");
+                        deleteQuietly(directory.resolve(run.optString("id") + EXTENSION));
+                    } else {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        // outputs of runs which never completed, e.g. because of a restart
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .filter(file -> {
+                        try {
+                            return Files.getLastModifiedTime(file).toMillis() < expired;
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(ExecutionHistory::deleteQuietly);
+        }
+    }
+
+    @CheckForNull
+    private static JSONObject parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            return JSONObject.fromObject(line);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> "not able to delete " + file);
+        }
+    }
+
+    /**
+     * A page of recorded runs, the newest first.
+     *
+     * @param total the number of runs recorded
+     */
+    public record Page(int total, List<JSONObject> runs) {}
+
+    /**
+     * Compresses the output of a run while it is written. Failures to record the run are logged only, so they do
+     * not fail the run itself.
+     */
+    public final class Recording extends OutputStream {
+        private final String id;
+        private final String scriptId;
+        private final String digest;
+        private final String user;
+        private final List<String> nodes;
+        private final long start = System.currentTimeMillis();
+
+        @CheckForNull
+        private OutputStream output;
+
+        private boolean finished;
+
+        Recording(String id, String scriptId, String digest, String user, List<String> nodes) {
+            this.id = id;
+            this.scriptId = scriptId;
+            this.digest = digest;
+            this.user = user;
+            this.nodes = List.copyOf(nodes);
+            try {
+                Files.createDirectories(directory);
+                this.output = new GZIPOutputStream(Files.newOutputStream(directory.resolve(id + EXTENSION)));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "not able to record the output of " + scriptId);
+            }
+        }
+
+        @NonNull
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(@NonNull byte[] b, int off, int len) {
+            if (output == null) {
+                return;
+            }
+            try {
+                output.write(b, off, len);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "not able to record the output of " + scriptId);
+                closeOutput();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            closeOutput();
+        }
+
+        private void closeOutput() {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, e, () -> "not able to close the output of " + scriptId);
+                }
+                output = null;
+            }
+        }
+
+        /**
+         * Closes the output and adds the run to the index.
+         *
+         * @param success whether the script succeeded on all the nodes
+         */
+        public synchronized void finish(boolean success) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            closeOutput();
+            final Path file = directory.resolve(id + EXTENSION);
+            final JSONObject run = new JSONObject();
+            run.put("id", id);
+            run.put("scriptId", scriptId);
+            run.put("digest", digest);
+            run.put("user", user);
+            run.put("nodes", JSONArray.fromObject(nodes));
+            run.put("start", start);
+            run.put("durationMillis", System.currentTimeMillis() - start);
+            run.put("status", success ? "success" : "failure");
+            try {
+                run.put("size", Files.isRegularFile(file) ? Files.size(file) : 0);
+                append(run);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "not able to record the run of " + scriptId);
+            }
+        }
+    }
+}
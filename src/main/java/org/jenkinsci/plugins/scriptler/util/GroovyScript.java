@@ -1,15 +1,30 @@
 package org.jenkinsci.plugins.scriptler.util;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
 import groovy.lang.Script;
+import groovy.transform.CompileStatic;
 import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.ChannelProperty;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.PrintStream;
 import java.io.Serial;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
 import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.SystemProperties;
 import org.apache.commons.collections.map.LRUMap;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
 import org.jenkinsci.plugins.scriptler.Messages;
 import org.jenkinsci.plugins.scriptler.config.Parameter;
 
@@ -20,6 +35,8 @@ public class GroovyScript extends MasterToSlaveCallable<Object, RuntimeException
     @Serial
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOGGER = Logger.getLogger(GroovyScript.class.getName());
+
     private final String script;
 
     @NonNull
@@ -28,8 +45,34 @@ public class GroovyScript extends MasterToSlaveCallable<Object, RuntimeException
     private final boolean failWithException;
     private final TaskListener listener;
 
+    private boolean compileStatic;
+
+    /**
+     * the version of the library scripts on the controller when this script got created, to be put on the classpath
+     * of the agent
+     */
+    @NonNull
+    private final String libraryVersion;
+
+    /**
+     * the classes compiled on the controller, asked for by the agent when it misses them; <code>null</code> unless
+     * the script got sent to an agent
+     */
+    @CheckForNull
+    private transient CompiledClasses controllerClasses;
+
+    private static final int CACHE_SIZE = SystemProperties.getInteger(GroovyScript.class.getName() + ".cacheSize", 10);
+
     @SuppressWarnings("unchecked")
-    private static final Map<String, ConcurrentLinkedQueue<Script>> cache = Collections.synchronizedMap(new LRUMap(10));
+    private static final Map<String, ConcurrentLinkedQueue<Script>> cache =
+            Collections.synchronizedMap(new LRUMap(CACHE_SIZE));
+
+    /**
+     * the proxy of {@link ControllerClasses} exported to a channel, set on the channel the first time a script is sent
+     * through it
+     */
+    private static final ChannelProperty<CompiledClasses> CONTROLLER_CLASSES =
+            new ChannelProperty<>(CompiledClasses.class, "Scriptler controller classes");
 
     private static final Set<String> DEFAULT_VARIABLES = new HashSet<>();
 
@@ -56,58 +99,173 @@ public class GroovyScript extends MasterToSlaveCallable<Object, RuntimeException
         this.parameters = new ArrayList<>(parameters);
         this.failWithException = failWithException;
         this.listener = listener;
+        this.libraryVersion = Jenkins.getInstanceOrNull() == null ? "" : ScriptLibrary.get().getVersion();
+    }
+
+    /**
+     * Compiles the script with {@link CompileStatic}, so type errors are reported at compile time and method calls
+     * are dispatched statically. Variables of the binding then have to be accessed via <code>binding</code>.
+     */
+    public void setCompileStatic(boolean compileStatic) {
+        this.compileStatic = compileStatic;
+    }
+
+    public boolean isCompileStatic() {
+        return compileStatic;
+    }
+
+    protected String getScriptText() {
+        return script;
+    }
+
+    protected TaskListener getListener() {
+        return listener;
     }
 
     public ClassLoader getClassLoader() {
-        return Thread.currentThread().getContextClassLoader();
+        return LookupCachingClassLoader.wrap(Thread.currentThread().getContextClassLoader());
     }
 
     public Object call() {
-        PrintStream logger = listener.getLogger();
-        GroovyShell shell = new GroovyShell(getClassLoader());
+        return call(new HashMap<>());
+    }
 
-        for (Parameter param : parameters) {
-            final String paramName = param.getName();
-            if (DEFAULT_VARIABLES.contains(paramName)) {
-                logger.println(Messages.skipParameter(paramName));
+    /**
+     * Runs the script like {@link #call()}, sharing variables with the scripts run before and after it, see
+     * {@link GroovyScriptBatch}.
+     *
+     * @param shared the variables left by the scripts run before, updated with the ones this script leaves
+     */
+    Object call(@NonNull Map<String, Object> shared) {
+        PrintStream listenerLogger = listener.getLogger();
+        PrintStream logger = createLogger(listenerLogger);
+        ClassLoader classLoader = null;
+        try {
+            // within the try, so the buffered output is written also if the library cannot be fetched
+            ScriptLibrary.Compiled currentLibrary = getLibrary();
+            classLoader = ScriptLibrary.withLibrary(currentLibrary, getClassLoader());
+            GroovyShell shell = createShell(classLoader, compileStatic);
+            bindVariables(shell, logger, shared, Map.of());
+            Set<String> provided = providedVariables(shell, shared);
+
+            Object output = run(shell, classLoader, ScriptLibrary.getVersion(currentLibrary));
+            shareVariables(shell, shared, provided);
+            if (output != null) {
+                logger.println(Messages.resultPrefix() + " " + output);
+                return output;
             } else {
-                shell.setVariable(paramName, param.getValue());
+                return "";
+            }
+        } catch (Throwable t) {
+            if (failWithException) {
+                throw new ScriptlerExecutionException(t);
+            }
+            t.printStackTrace(logger);
+            return Boolean.FALSE;
+        } finally {
+            if (logger != listenerLogger) {
+                // writes the output still buffered, also if the script failed
+                logger.close();
             }
+            if (classLoader instanceof LookupCachingClassLoader lookups) {
+                LOGGER.log(
+                        Level.FINE,
+                        "{0} class lookups delegated, {1} answered from the cached misses",
+                        new Object[] {lookups.getDelegatedLookups(), lookups.getCachedMisses()});
+            }
+        }
+    }
+
+    /**
+     * @return the stream the output of the script is written to; on an agent, the output is buffered instead of
+     *         being sent to the controller line by line
+     */
+    private static PrintStream createLogger(PrintStream logger) {
+        if (Jenkins.getInstanceOrNull() != null) {
+            return logger;
+        }
+        // build logs are written in UTF-8
+        return new PrintStream(new CoalescingOutputStream(logger), false, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs the script within this JVM and returns the value it returned, e.g. when it is called by another script.
+     * Neither the value is logged, nor are the exceptions thrown by the script wrapped.
+     *
+     * @param arguments values bound in addition to the parameters, overriding parameters with the same name
+     */
+    public Object invoke(@NonNull Map<String, ?> arguments) {
+        ScriptLibrary.Compiled currentLibrary = getLibrary();
+        ClassLoader classLoader = ScriptLibrary.withLibrary(currentLibrary, getClassLoader());
+        GroovyShell shell = createShell(classLoader, compileStatic);
+        bindVariables(shell, listener.getLogger(), Map.of(), arguments);
+        return run(shell, classLoader, ScriptLibrary.getVersion(currentLibrary));
+    }
+
+    private void bindVariables(
+            GroovyShell shell, PrintStream logger, Map<String, ?> shared, Map<String, ?> arguments) {
+        Map<String, Object> variables = new LinkedHashMap<>(shared);
+        for (Parameter param : parameters) {
+            variables.put(param.getName(), param.getValue());
         }
+        variables.putAll(arguments);
+        variables.forEach((name, value) -> {
+            if (DEFAULT_VARIABLES.contains(name)) {
+                logger.println(Messages.skipParameter(name));
+            } else {
+                shell.setVariable(name, value);
+            }
+        });
 
         // set default variables
         shell.setVariable("out", logger);
         setShellVariables(shell);
+    }
 
-        ConcurrentLinkedQueue<Script> scriptPool = cache.get(script);
-        if (scriptPool == null) {
-            scriptPool = new ConcurrentLinkedQueue<>();
-            cache.put(script, scriptPool);
-            scriptPool = cache.get(script);
+    /**
+     * @return the names of the variables bound before the script runs, except the ones shared by the scripts run
+     *         before it: the parameters, the default variables and the ones added by {@link #setShellVariables}
+     */
+    private Set<String> providedVariables(GroovyShell shell, Map<String, Object> shared) {
+        Set<String> provided = new HashSet<>(shell.getContext().getVariables().keySet());
+        provided.removeAll(shared.keySet());
+        for (Parameter param : parameters) {
+            provided.add(param.getName());
         }
+        provided.addAll(DEFAULT_VARIABLES);
+        return provided;
+    }
+
+    /**
+     * Adds the variables the script assigned without declaring them to the shared ones, so neither its parameters
+     * nor the variables provided by Scriptler are visible to the scripts following it.
+     */
+    private static void shareVariables(GroovyShell shell, Map<String, Object> shared, Set<String> provided) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> variables = shell.getContext().getVariables();
+        variables.forEach((name, value) -> {
+            if (!provided.contains(name)) {
+                shared.put(name, value);
+            }
+        });
+    }
+
+    /**
+     * Runs an instance of the script taken from the pool, compiling it if there is none.
+     */
+    private Object run(GroovyShell shell, ClassLoader classLoader, String libraryVersion) {
+        ConcurrentLinkedQueue<Script> scriptPool = getScriptPool(poolKey(script, compileStatic, libraryVersion));
 
         Script parsedScript = scriptPool.poll();
 
         try {
             if (parsedScript == null) {
-                parsedScript = shell.parse(script);
+                parsedScript = parse(shell, classLoader, libraryVersion);
             }
 
             parsedScript.setBinding(shell.getContext());
 
-            Object output = parsedScript.run();
-            if (output != null) {
-                logger.println(Messages.resultPrefix() + " " + output);
-                return output;
-            } else {
-                return "";
-            }
-        } catch (Throwable t) {
-            if (failWithException) {
-                throw new ScriptlerExecutionException(t);
-            }
-            t.printStackTrace(logger);
-            return Boolean.FALSE;
+            return parsedScript.run();
         } finally {
             if (parsedScript != null) {
                 scriptPool.add(parsedScript);
@@ -115,10 +273,174 @@ public class GroovyScript extends MasterToSlaveCallable<Object, RuntimeException
         }
     }
 
+    /**
+     * Compiles the script, called whenever the pool holds no compiled instance of it.
+     *
+     * @param libraryVersion the version of the library on the classpath of the given class loader
+     */
+    @NonNull
+    protected Script parse(@NonNull GroovyShell shell, @NonNull ClassLoader classLoader, String libraryVersion) {
+        // spares the agent the compilation if the controller compiled the script already
+        BytecodeCache.CompiledScript bytecode = controllerClasses == null
+                ? null
+                : controllerClasses.getBytecode(script, compileStatic, libraryVersion);
+        if (bytecode != null) {
+            return bytecode.newScript(classLoader);
+        }
+        return shell.parse(script);
+    }
+
+    /**
+     * @return the current library when running on the controller, otherwise the one the controller had when this
+     *         script got created
+     */
+    @CheckForNull
+    protected ScriptLibrary.Compiled getLibrary() {
+        if (Jenkins.getInstanceOrNull() != null) {
+            return ScriptLibrary.get().getCompiled();
+        }
+        return ScriptLibrary.getReceived(libraryVersion, controllerClasses);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Channel channel = Channel.current();
+        out.writeObject(channel == null || Jenkins.getInstanceOrNull() == null ? null : getControllerClasses(channel));
+    }
+
+    /**
+     * @return the proxy of {@link ControllerClasses} for the given channel, exported once and kept until the channel
+     *         is closed, so sending a script does not add an entry to the export table of the channel every time
+     */
+    private static CompiledClasses getControllerClasses(@NonNull Channel channel) {
+        synchronized (CONTROLLER_CLASSES) {
+            CompiledClasses proxy = channel.getProperty(CONTROLLER_CLASSES);
+            if (proxy == null) {
+                proxy = channel.export(CompiledClasses.class, ControllerClasses.INSTANCE);
+                // not unexported when the proxies deserialized by the agent get collected
+                channel.pin(ControllerClasses.INSTANCE);
+                channel.setProperty(CONTROLLER_CLASSES, proxy);
+            }
+            return proxy;
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        controllerClasses = (CompiledClasses) in.readObject();
+    }
+
+    private static ConcurrentLinkedQueue<Script> getScriptPool(String key) {
+        ConcurrentLinkedQueue<Script> scriptPool = cache.get(key);
+        if (scriptPool == null) {
+            scriptPool = new ConcurrentLinkedQueue<>();
+            cache.put(key, scriptPool);
+            scriptPool = cache.get(key);
+        }
+        return scriptPool;
+    }
+
+    /**
+     * the same source compiled statically and dynamically or against another library results in different classes,
+     * so they are pooled separately
+     */
+    private static String poolKey(String script, boolean compileStatic, String libraryVersion) {
+        String key = libraryVersion.isEmpty() ? script : "\u0000" + libraryVersion + "\u0000" + script;
+        return compileStatic ? "\u0000static\u0000" + key : key;
+    }
+
+    private static GroovyShell createShell(ClassLoader classLoader, boolean compileStatic) {
+        if (!compileStatic) {
+            return new GroovyShell(classLoader);
+        }
+        return new GroovyShell(classLoader, new Binding(), createConfiguration(compileStatic));
+    }
+
+    @NonNull
+    static CompilerConfiguration createConfiguration(boolean compileStatic) {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        if (compileStatic) {
+            configuration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+        }
+        return configuration;
+    }
+
+    /**
+     * Compiles the given script and adds it to the pool of parsed scripts, so the next execution of the same source
+     * within this JVM does not have to compile it anymore. On the controller, the bytecode is taken from or added to
+     * the {@link BytecodeCache}.
+     *
+     * @param script the script to be compiled, must be approved already
+     * @param classLoader the class loader to compile the script with
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script does not compile
+     */
+    public static void precompile(@NonNull String script, @NonNull ClassLoader classLoader) {
+        precompile(script, classLoader, false);
+    }
+
+    /**
+     * Like {@link #precompile(String, ClassLoader)}, optionally compiling the script statically.
+     *
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script does not compile, including the
+     *         type checking errors of a static compilation
+     */
+    public static void precompile(@NonNull String script, @NonNull ClassLoader classLoader, boolean compileStatic) {
+        precompile(
+                script,
+                classLoader,
+                compileStatic,
+                Jenkins.getInstanceOrNull() == null ? null : ScriptLibrary.get().getCompiled());
+    }
+
+    /**
+     * Like {@link #precompile(String, ClassLoader, boolean)}, compiling the script against the given library.
+     */
+    public static void precompile(
+            @NonNull String script,
+            @NonNull ClassLoader classLoader,
+            boolean compileStatic,
+            @CheckForNull ScriptLibrary.Compiled library) {
+        final String libraryVersion = ScriptLibrary.getVersion(library);
+        ConcurrentLinkedQueue<Script> scriptPool = getScriptPool(poolKey(script, compileStatic, libraryVersion));
+        if (scriptPool.isEmpty()) {
+            final ClassLoader withLibrary = ScriptLibrary.withLibrary(library, classLoader);
+            scriptPool.add(
+                    Jenkins.getInstanceOrNull() == null
+                            ? createShell(withLibrary, compileStatic).parse(script)
+                            : BytecodeCache.get()
+                                    .getOrCompile(script, compileStatic, libraryVersion, withLibrary, true)
+                                    .newScript(withLibrary));
+        }
+    }
+
     protected void setShellVariables(@NonNull GroovyShell shell) {
         shell.setVariable("listener", listener);
     }
 
+    /**
+     * Answers the agents missing classes compiled on the controller. Only the bytecode of sources compiled already,
+     * i.e. of approved ones, is returned, nothing gets compiled on behalf of an agent.
+     */
+    private static final class ControllerClasses implements CompiledClasses {
+        static final ControllerClasses INSTANCE = new ControllerClasses();
+
+        @CheckForNull
+        @Override
+        public BytecodeCache.CompiledScript getBytecode(
+                @NonNull String source, boolean compileStatic, @NonNull String libraryVersion) {
+            return BytecodeCache.get().lookup(source, compileStatic, libraryVersion);
+        }
+
+        @CheckForNull
+        @Override
+        public ScriptLibrary.Compiled getLibrary(@NonNull String version) {
+            ScriptLibrary.Compiled library = ScriptLibrary.get().getCompiled();
+            return library != null && library.getVersion().equals(version) ? library : null;
+        }
+    }
+
     private static final class ScriptlerExecutionException extends RuntimeException {
         @Serial
         private static final long serialVersionUID = 1L;
@@ -0,0 +1,40 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Runs several scripts one after the other in a single call, so running them on an agent takes one round trip
+ * instead of one per script. The variables a script assigns without declaring them are visible to the scripts
+ * following it.
+ * <p>
+ * The batch stops at the first script failing, its result is the one of the last script run.
+ */
+public class GroovyScriptBatch extends MasterToSlaveCallable<Object, RuntimeException> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<GroovyScript> scripts;
+
+    public GroovyScriptBatch(@NonNull List<? extends GroovyScript> scripts) {
+        this.scripts = new ArrayList<>(scripts);
+    }
+
+    @Override
+    public Object call() {
+        Map<String, Object> shared = new HashMap<>();
+        Object output = "";
+        for (GroovyScript script : scripts) {
+            output = script.call(shared);
+            if (Boolean.FALSE.equals(output)) {
+                break;
+            }
+        }
+        return output;
+    }
+}
@@ -0,0 +1,81 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Run;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jenkins.model.Jenkins;
+
+/**
+ * Lazy queries over the items and builds of Jenkins, bound as <code>jenkinsModel</code> to the scripts run on the
+ * built-in node.
+ * <p>
+ * Unlike <code>Jenkins.instance.getAllItems(Job)</code> and <code>job.builds</code>, the returned streams walk the
+ * item tree and load the build records one by one as they are consumed, so a report filtering and limiting them, e.g.
+ * <code>jenkinsModel.jobs().filter { it.disabled }.limit(100)</code>, stops loading as soon as it has enough and only
+ * keeps the builds it references on the heap. Only the items the current user is allowed to read are returned.
+ */
+public final class JenkinsModelQueries {
+
+    private static final JenkinsModelQueries INSTANCE = new JenkinsModelQueries();
+
+    private JenkinsModelQueries() {}
+
+    public static JenkinsModelQueries get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return all the items of the given type, in depth first order
+     */
+    @NonNull
+    public <T extends Item> Stream<T> items(@NonNull Class<T> type) {
+        return StreamSupport.stream(Items.allItems(Jenkins.get(), type).spliterator(), false);
+    }
+
+    /**
+     * @return all the jobs, in depth first order
+     */
+    @NonNull
+    public Stream<Job<?, ?>> jobs() {
+        return items(Job.class).map(job -> (Job<?, ?>) job);
+    }
+
+    /**
+     * @return the builds of the given job, the newest first, loaded as the stream is consumed
+     */
+    @NonNull
+    public Stream<Run<?, ?>> builds(@NonNull Job<?, ?> job) {
+        return StreamSupport.stream(job.getBuilds().spliterator(), false).map(build -> (Run<?, ?>) build);
+    }
+
+    /**
+     * @param since the time in milliseconds since the epoch
+     * @return the builds of the given job started since the given time, the newest first; older builds are not loaded
+     */
+    @NonNull
+    public Stream<Run<?, ?>> builds(@NonNull Job<?, ?> job, long since) {
+        return builds(job).takeWhile(build -> build.getTimeInMillis() >= since);
+    }
+
+    /**
+     * @param limit the maximum number of builds per job
+     * @return the newest builds of all the jobs, job by job
+     */
+    @NonNull
+    public Stream<Run<?, ?>> builds(int limit) {
+        return jobs().flatMap(job -> builds(job).limit(limit));
+    }
+
+    /**
+     * @param since the time in milliseconds since the epoch
+     * @return the builds of all the jobs started since the given time, job by job
+     */
+    @NonNull
+    public Stream<Run<?, ?>> buildsSince(long since) {
+        return jobs().flatMap(job -> builds(job, since));
+    }
+}
@@ -0,0 +1,135 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Class loader put in front of the class loader a script gets compiled with, remembering the classes and resources
+ * which could not be found. The Groovy compiler probes for a class for many unresolved names, on an agent every
+ * probe of the remoting class loader is a round trip to the controller, so answering the repeated misses locally
+ * saves a lot of time on high-latency agents. Classes found are cached by the parent class loader anyway.
+ * <p>
+ * The misses are shared by all the scripts compiled with the same parent, the counters are per instance, i.e. per
+ * execution. The misses are forgotten after a while (10 minutes by default), so classes becoming available later,
+ * e.g. from a plugin installed meanwhile, are found again.
+ */
+@Restricted(NoExternalUse.class)
+public final class LookupCachingClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    /**
+     * upper bound of the remembered misses per parent class loader
+     */
+    private static final int MAX_MISSES =
+            SystemProperties.getInteger(LookupCachingClassLoader.class.getName() + ".maxMisses", 10_000);
+
+    /**
+     * time after which the misses remembered for a parent class loader are forgotten
+     */
+    private static final long MISSES_TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            SystemProperties.getLong(LookupCachingClassLoader.class.getName() + ".missesTtlSeconds", 600L));
+
+    private static final Map<ClassLoader, Misses> MISSES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Misses misses;
+
+    private final AtomicInteger delegatedLookups = new AtomicInteger();
+    private final AtomicInteger cachedMisses = new AtomicInteger();
+
+    private LookupCachingClassLoader(@NonNull ClassLoader parent, @NonNull Misses misses) {
+        super(parent);
+        this.misses = misses;
+    }
+
+    /**
+     * @param parent the class loader to delegate to
+     * @return a new class loader sharing the remembered misses with all other instances for the same parent
+     */
+    @NonNull
+    public static LookupCachingClassLoader wrap(@NonNull ClassLoader parent) {
+        return wrap(parent, System.currentTimeMillis());
+    }
+
+    @NonNull
+    static LookupCachingClassLoader wrap(@NonNull ClassLoader parent, long now) {
+        Misses misses = MISSES.compute(
+                parent, (p, current) -> current == null || current.isExpired(now) ? new Misses(now) : current);
+        return new LookupCachingClassLoader(parent, misses);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (misses.classes.contains(name)) {
+            cachedMisses.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+        delegatedLookups.incrementAndGet();
+        try {
+            return super.loadClass(name, resolve);
+        } catch (ClassNotFoundException e) {
+            misses.add(misses.classes, name);
+            throw e;
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        if (misses.resources.contains(name)) {
+            cachedMisses.incrementAndGet();
+            return null;
+        }
+        delegatedLookups.incrementAndGet();
+        URL resource = super.getResource(name);
+        if (resource == null) {
+            misses.add(misses.resources, name);
+        }
+        return resource;
+    }
+
+    /**
+     * @return the number of class and resource lookups passed on to the parent class loader
+     */
+    public int getDelegatedLookups() {
+        return delegatedLookups.get();
+    }
+
+    /**
+     * @return the number of class and resource lookups answered from the remembered misses
+     */
+    public int getCachedMisses() {
+        return cachedMisses.get();
+    }
+
+    private static final class Misses {
+        private final Set<String> classes = ConcurrentHashMap.newKeySet();
+        private final Set<String> resources = ConcurrentHashMap.newKeySet();
+        private final long expiresAt;
+
+        Misses(long now) {
+            this.expiresAt = now + MISSES_TTL_MILLIS;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+
+        void add(Set<String> names, String name) {
+            if (classes.size() + resources.size() < MAX_MISSES) {
+                names.add(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+
+/**
+ * Runs a map script on several nodes in parallel and folds the returned values with a reduce script on the
+ * controller, in the order the nodes complete. Only the current aggregate is kept, the outputs written by the map
+ * script are discarded.
+ * <p>
+ * The reduce script gets the following variables:
+ * <ul>
+ *     <li><code>accumulator</code>: the value returned by the previous reduce run, <code>null</code> for the first
+ *     node</li>
+ *     <li><code>node</code>: the name of the node the result comes from</li>
+ *     <li><code>result</code>: the (serializable) value returned by the map script on that node</li>
+ *     <li><code>error</code>: the exception thrown on that node, <code>null</code> on success</li>
+ * </ul>
+ * The value returned by the last reduce run is the result of the whole execution.
+ */
+public final class MapReduce {
+
+    private MapReduce() {}
+
+    /**
+     * @param computers the names of the nodes to run the map script on
+     * @param mapScriptId the id of the saved map script
+     * @param mapScript the script to run on every node, must be approved
+     * @param parameters the parameters passed to the map script
+     * @param compileStatic whether to compile the map script with <code>@CompileStatic</code>
+     * @param reduceScript the script to run on the controller for every result, must be approved
+     * @return the value returned by the last run of the reduce script
+     */
+    @CheckForNull
+    public static Object run(
+            @NonNull List<String> computers,
+            @CheckForNull String mapScriptId,
+            @NonNull String mapScript,
+            @NonNull Collection<Parameter> parameters,
+            boolean compileStatic,
+            @NonNull String reduceScript)
+            throws IOException, ServletException {
+        final groovy.lang.Script reduce =
+                new GroovyShell(Jenkins.get().getPluginManager().uberClassLoader).parse(reduceScript);
+
+        final Object[] accumulator = new Object[1];
+        ParallelExecution.run(computers, mapScriptId, mapScript, parameters, compileStatic, null, nodeResult -> {
+            Binding binding = new Binding();
+            binding.setVariable("accumulator", accumulator[0]);
+            binding.setVariable("node", nodeResult.node());
+            binding.setVariable("result", nodeResult.value());
+            binding.setVariable("error", nodeResult.error());
+            reduce.setBinding(binding);
+            accumulator[0] = reduce.run();
+        });
+        return accumulator[0];
+    }
+}
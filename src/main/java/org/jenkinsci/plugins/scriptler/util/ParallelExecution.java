@@ -0,0 +1,201 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.StreamTaskListener;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.scriptler.NodeNames;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+
+/**
+ * Runs a script on several nodes in parallel and hands the result of every node over as soon as it completes,
+ * instead of waiting for all nodes and concatenating their outputs.
+ * <p>
+ * At most <code>maxConcurrency</code> executions (20 by default) run at the same time, shared by all callers, so
+ * running a script on a large number of nodes does not start one thread per node at once.
+ */
+public final class ParallelExecution {
+
+    private static final Logger LOGGER = Logger.getLogger(ParallelExecution.class.getName());
+
+    private static final int MAX_CONCURRENCY =
+            SystemProperties.getInteger(ParallelExecution.class.getName() + ".maxConcurrency", 20);
+
+    private static final Semaphore SLOTS = new Semaphore(Math.max(1, MAX_CONCURRENCY), true);
+
+    private ParallelExecution() {}
+
+    /**
+     * @param computers the names of the nodes to run the script on
+     * @param scriptId the id of the saved script, <code>null</code> for a script run from the console
+     * @param script the script, must be approved
+     * @param parameters the parameters passed to the script
+     * @param compileStatic whether to compile the script with <code>@CompileStatic</code>
+     * @param downloadUrl gives the URL the full output of a node is downloaded from if it is too big to be kept in
+     *                    memory, see {@link SpillingOutputStream#getText(String)}; <code>null</code> to discard the
+     *                    output written by the script
+     * @param consumer called on the calling thread for every node in the order the nodes complete; the executions
+     *                 still running are cancelled if it throws
+     */
+    public static void run(
+            @NonNull List<String> computers,
+            @CheckForNull String scriptId,
+            @NonNull String script,
+            @NonNull Collection<Parameter> parameters,
+            boolean compileStatic,
+            @CheckForNull Function<String, String> downloadUrl,
+            @NonNull ResultConsumer consumer)
+            throws IOException, ServletException {
+        final ExecutorCompletionService<Result> completionService =
+                new ExecutorCompletionService<>(Computer.threadPoolForRemoting);
+        final List<Submitted> submitted = new ArrayList<>();
+        final Iterator<String> pending = computers.iterator();
+        int running = 0;
+        try {
+            while (pending.hasNext() || running > 0) {
+                // without an execution of its own to wait for, the caller waits for a slot of the other callers
+                if (pending.hasNext() && (running == 0 ? acquire() : SLOTS.tryAcquire())) {
+                    final String computer = pending.next();
+                    final AtomicBoolean claimed = new AtomicBoolean();
+                    final Future<Result> future = completionService.submit(() -> {
+                        if (!claimed.compareAndSet(false, true)) {
+                            // cancelled before it started, the slot got released by the caller
+                            return null;
+                        }
+                        try {
+                            return execute(computer, scriptId, script, parameters, compileStatic, downloadUrl);
+                        } finally {
+                            SLOTS.release();
+                        }
+                    });
+                    submitted.add(new Submitted(future, claimed));
+                    running++;
+                } else {
+                    consumer.accept(completionService.take().get());
+                    running--;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        } catch (ExecutionException e) {
+            // execute never throws, the failures are part of the result
+            throw new ServletException(e.getCause());
+        } finally {
+            for (Submitted execution : submitted) {
+                execution.future().cancel(true);
+                if (execution.claimed().compareAndSet(false, true)) {
+                    SLOTS.release();
+                }
+            }
+        }
+    }
+
+    private static boolean acquire() throws InterruptedException {
+        SLOTS.acquire();
+        return true;
+    }
+
+    @NonNull
+    private static Result execute(
+            String computer,
+            String scriptId,
+            String script,
+            Collection<Parameter> parameters,
+            boolean compileStatic,
+            @CheckForNull Function<String, String> downloadUrl) {
+        final long start = System.nanoTime();
+        final SpillingOutputStream output = downloadUrl == null ? null : new SpillingOutputStream();
+        final TaskListener listener =
+                output == null ? TaskListener.NULL : new StreamTaskListener(output, StandardCharsets.UTF_8);
+        Object value = null;
+        Throwable error = null;
+        try {
+            if (NodeNames.BUILT_IN.equals(computer)) {
+                ControllerGroovyScript groovyScript =
+                        new ControllerGroovyScript(script, parameters, true, listener, null, null);
+                groovyScript.setScriptId(scriptId);
+                groovyScript.setCompileStatic(compileStatic);
+                value = FilePath.localChannel.call(groovyScript);
+            } else {
+                Computer comp = Jenkins.get().getComputer(computer);
+                VirtualChannel channel = comp == null ? null : comp.getChannel();
+                if (channel == null) {
+                    error = new IOException(computer + " is offline");
+                } else {
+                    GroovyScript groovyScript = new GroovyScript(script, parameters, true, listener);
+                    groovyScript.setCompileStatic(compileStatic);
+                    value = channel.call(groovyScript);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, e, () -> "script failed on " + computer);
+            // unwrap the exception thrown by the script itself
+            error = e instanceof RuntimeException && e.getCause() != null ? e.getCause() : e;
+        }
+        final long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        String text = null;
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> "not able to close the output of " + computer);
+            }
+            text = output.getText(downloadUrl.apply(output.getId()));
+        }
+        return new Result(computer, value, error, text, durationMillis);
+    }
+
+    private record Submitted(Future<Result> future, AtomicBoolean claimed) {}
+
+    /**
+     * The outcome of the execution on a single node.
+     *
+     * @param node the name of the node
+     * @param value the value returned by the script, <code>null</code> if it failed
+     * @param error the exception thrown on that node, <code>null</code> on success
+     * @param output the output written by the script, <code>null</code> if not captured
+     * @param durationMillis the time the execution took
+     */
+    public record Result(
+            @NonNull String node,
+            @CheckForNull Object value,
+            @CheckForNull Throwable error,
+            @CheckForNull String output,
+            long durationMillis) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Receives the results of the nodes.
+     */
+    @FunctionalInterface
+    public interface ResultConsumer {
+        void accept(@NonNull Result result) throws IOException;
+    }
+}
@@ -9,17 +9,24 @@ import hudson.util.StreamTaskListener;
 import jakarta.servlet.ServletException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONSerializer;
+import org.apache.commons.collections.map.LRUMap;
 import org.jenkinsci.plugins.scriptler.Messages;
 import org.jenkinsci.plugins.scriptler.NodeNames;
 import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
@@ -46,6 +53,17 @@ public final class ScriptHelper {
     private static final Map<String, Class<?>> JSON_CLASS_MAPPING =
             Map.of("authors", Author.class, "parameters", Parameter.class);
 
+    private static final int SOURCE_CACHE_SIZE =
+            SystemProperties.getInteger(ScriptHelper.class.getName() + ".sourceCacheSize", 100);
+
+    /**
+     * The sources of the most recently used scripts, read again from disk as soon as the size or the modification
+     * time of their file changes.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Map<Path, CachedSource> SOURCE_CACHE =
+            Collections.synchronizedMap(new LRUMap(SOURCE_CACHE_SIZE));
+
     private ScriptHelper() {}
 
     @NonNull
@@ -55,6 +73,46 @@ public final class ScriptHelper {
 
     public static void writeScriptToFile(@NonNull Path path, @NonNull String script) throws IOException {
         Files.writeString(path, script, StandardCharsets.UTF_8);
+        Path key = path.toAbsolutePath().normalize();
+        SOURCE_CACHE.put(key, CachedSource.of(Files.readAttributes(key, BasicFileAttributes.class), script));
+    }
+
+    /**
+     * Drops the cached source of the script stored at the given path, e.g. because the file got removed.
+     */
+    public static void invalidateCachedSource(@NonNull Path path) {
+        SOURCE_CACHE.remove(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Drops all cached sources, e.g. after the script directory got changed by a push to the git repository.
+     */
+    public static void invalidateCachedSources() {
+        SOURCE_CACHE.clear();
+    }
+
+    @NonNull
+    private static String readCachedScriptFromFile(@NonNull Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        CachedSource cached = SOURCE_CACHE.get(key);
+        if (cached != null && cached.matches(attributes)) {
+            return cached.text();
+        }
+        // a change after reading the attributes is noticed by the next call, as the attributes then differ again
+        String text = readScriptFromFile(key);
+        SOURCE_CACHE.put(key, CachedSource.of(attributes, text));
+        return text;
+    }
+
+    private record CachedSource(FileTime lastModified, long size, String text) {
+        static CachedSource of(BasicFileAttributes attributes, String text) {
+            return new CachedSource(attributes.lastModifiedTime(), attributes.size(), text);
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
     }
 
     /**
@@ -74,7 +132,7 @@ public final class ScriptHelper {
         if (withSrc && s != null) {
             Path scriptSrc = ScriptlerManagement.getScriptDirectory2().resolve(s.getScriptPath());
             try {
-                s.setScriptText(readScriptFromFile(scriptSrc));
+                s.setScriptText(readCachedScriptFromFile(scriptSrc));
             } catch (IOException e) {
                 LOGGER.log(Level.SEVERE, Messages.scriptSourceNotFound(id));
             }
@@ -82,6 +140,47 @@ public final class ScriptHelper {
         return s;
     }
 
+    /**
+     * Computes a digest identifying the given script source, e.g. to be used as cache key.
+     *
+     * @param scriptSourceCode the source to compute the digest for
+     * @return the hex encoded SHA-256 digest of the source
+     */
+    @NonNull
+    public static String digest(@NonNull String scriptSourceCode) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(scriptSourceCode.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * Computes a digest identifying the given parameters, e.g. to be used as part of a cache key. Names and values
+     * are prefixed by their length, so no two different lists of parameters share a digest.
+     *
+     * @param parameters the parameters to compute the digest for, in the order given
+     * @return the hex encoded SHA-256 digest of the parameters
+     */
+    @NonNull
+    public static String digestParameters(@NonNull Iterable<Parameter> parameters) {
+        StringBuilder text = new StringBuilder();
+        for (Parameter parameter : parameters) {
+            appendLengthPrefixed(text, parameter.getName());
+            appendLengthPrefixed(text, parameter.getValue());
+        }
+        return digest(text.toString());
+    }
+
+    static void appendLengthPrefixed(@NonNull StringBuilder text, @CheckForNull String value) {
+        if (value == null) {
+            text.append("-1:");
+        } else {
+            text.append(value.length()).append(':').append(value);
+        }
+    }
+
     public static void putScriptInApprovalQueueIfRequired(@NonNull String scriptSourceCode) {
         // we cannot use sandbox since the script is potentially sent to agents
         // and the sandbox mode is not meant to be used with remoting
@@ -142,15 +241,43 @@ public final class ScriptHelper {
 
     public static String runScript(List<String> computers, String scriptText, @NonNull Collection<Parameter> parameters)
             throws IOException, ServletException {
-        StringBuilder output = new StringBuilder();
+        return runScript(computers, scriptText, parameters, false);
+    }
+
+    public static String runScript(
+            List<String> computers,
+            String scriptText,
+            @NonNull Collection<Parameter> parameters,
+            boolean compileStatic)
+            throws IOException, ServletException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        runScript(computers, null, scriptText, parameters, compileStatic, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs the script on the given nodes one after the other, writing the output of every node to the given stream.
+     *
+     * @param scriptId the id of the saved script, <code>null</code> for a script run from the console
+     * @return whether the script succeeded on all the nodes
+     */
+    public static boolean runScript(
+            List<String> computers,
+            @CheckForNull String scriptId,
+            String scriptText,
+            @NonNull Collection<Parameter> parameters,
+            boolean compileStatic,
+            @NonNull OutputStream output)
+            throws IOException, ServletException {
+        boolean success = true;
         for (String computer : computers) {
             LOGGER.log(Level.FINE, "here is the node -> {0}", computer);
-            output.append("___________________________________________\n");
-            output.append("[").append(computer).append("]:\n");
-            output.append(ScriptHelper.runScript(computer, scriptText, parameters));
+            output.write(("___________________________________________\n[" + computer + "]:\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            success &= runScript(computer, scriptId, scriptText, parameters, compileStatic, output);
         }
-        output.append("___________________________________________\n");
-        return output.toString();
+        output.write("___________________________________________\n".getBytes(StandardCharsets.UTF_8));
+        return success;
     }
 
     /**
@@ -164,23 +291,68 @@ public final class ScriptHelper {
      */
     public static String runScript(String node, String scriptTxt, @NonNull Collection<Parameter> parameters)
             throws IOException, ServletException {
+        return runScript(node, scriptTxt, parameters, false);
+    }
 
+    /**
+     * Runs the execution on a given agent.
+     *
+     * @param node
+     *            where to run the script.
+     * @param scriptTxt
+     *            the script (groovy) to be executed.
+     * @param compileStatic
+     *            compile the script with <code>@CompileStatic</code>
+     * @return the output
+     */
+    public static String runScript(
+            String node, String scriptTxt, @NonNull Collection<Parameter> parameters, boolean compileStatic)
+            throws IOException, ServletException {
         ByteArrayOutputStream sos = new ByteArrayOutputStream();
+        runScript(node, null, scriptTxt, parameters, compileStatic, sos);
+        return sos.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs the execution on a given agent, writing the output to the given stream, e.g. a
+     * {@link SpillingOutputStream} for outputs which may be too big to be kept in memory.
+     *
+     * @param node
+     *            where to run the script.
+     * @param scriptId
+     *            the id of the saved script, <code>null</code> for a script run from the console
+     * @param scriptTxt
+     *            the script (groovy) to be executed.
+     * @param compileStatic
+     *            compile the script with <code>@CompileStatic</code>
+     * @param output
+     *            receives the output, encoded in UTF-8
+     * @return whether the script succeeded, <code>false</code> if it failed or the node is not available
+     */
+    public static boolean runScript(
+            String node,
+            @CheckForNull String scriptId,
+            String scriptTxt,
+            @NonNull Collection<Parameter> parameters,
+            boolean compileStatic,
+            @NonNull OutputStream output)
+            throws IOException, ServletException {
+        Object result = Boolean.FALSE;
         if (node != null && scriptTxt != null) {
 
             try {
                 Computer comp = Jenkins.get().getComputer(node);
-                TaskListener listener = new StreamTaskListener(sos, StandardCharsets.UTF_8);
+                TaskListener listener = new StreamTaskListener(output, StandardCharsets.UTF_8);
                 if (NodeNames.BUILT_IN.equals(node)) {
-                    FilePath.localChannel.call(new ControllerGroovyScript(
-                            scriptTxt,
-                            parameters,
-                            false,
-                            listener,
-                            Jenkins.get().createLauncher(listener),
-                            null));
+                    ControllerGroovyScript script = new ControllerGroovyScript(
+                            scriptTxt, parameters, false, listener, Jenkins.get().createLauncher(listener), null);
+                    script.setScriptId(scriptId);
+                    script.setCompileStatic(compileStatic);
+                    result = FilePath.localChannel.call(script);
                 } else if (comp != null && comp.getChannel() != null) {
-                    comp.getChannel().call(new GroovyScript(scriptTxt, parameters, false, listener));
+                    GroovyScript script = new GroovyScript(scriptTxt, parameters, false, listener);
+                    script.setCompileStatic(compileStatic);
+                    result = comp.getChannel().call(script);
                 }
 
             } catch (InterruptedException e) {
@@ -188,7 +360,7 @@ public final class ScriptHelper {
                 throw new ServletException(e);
             }
         }
-        return sos.toString(StandardCharsets.UTF_8);
+        return !Boolean.FALSE.equals(result);
     }
 
     /**
@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.scriptler.Messages;
+import org.jenkinsci.plugins.scriptler.config.Script;
+
+/**
+ * Bound as <code>scriptler</code> to the scripts run on the built-in node, to call other scripts within the same JVM
+ * instead of via the REST API: <code>scriptler.run('other.groovy', [param: value])</code> returns the value returned
+ * by the other script.
+ * <p>
+ * The called script is taken from the pool of compiled scripts like any other script. It gets the defaults of its
+ * parameters, overridden by the given arguments, which may be any objects. Exceptions thrown by the called script are
+ * passed on to the caller.
+ */
+public final class ScriptInvoker {
+
+    /**
+     * the maximum number of nested calls, guarding against scripts calling each other endlessly
+     */
+    static final int MAX_DEPTH = SystemProperties.getInteger(ScriptInvoker.class.getName() + ".maxDepth", 10);
+
+    private final TaskListener listener;
+
+    @CheckForNull
+    private final Launcher launcher;
+
+    @CheckForNull
+    private final AbstractBuild<?, ?> build;
+
+    private final int depth;
+
+    /**
+     * the sources found to be approved during this execution, so a script called in a loop is checked only once
+     */
+    private final Set<String> approved;
+
+    ScriptInvoker(
+            @NonNull TaskListener listener, @CheckForNull Launcher launcher, @CheckForNull AbstractBuild<?, ?> build) {
+        this(listener, launcher, build, 0, new HashSet<>());
+    }
+
+    private ScriptInvoker(
+            TaskListener listener, Launcher launcher, AbstractBuild<?, ?> build, int depth, Set<String> approved) {
+        this.listener = listener;
+        this.launcher = launcher;
+        this.build = build;
+        this.depth = depth;
+        this.approved = approved;
+    }
+
+    public Object run(@NonNull String id) {
+        return run(id, Map.of());
+    }
+
+    /**
+     * @param id the id of the script to call
+     * @param arguments the values of the parameters of the called script
+     * @return the value returned by the called script
+     */
+    public Object run(@NonNull String id, @NonNull Map<String, ?> arguments) {
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException(Messages.scriptCallTooDeep(id, MAX_DEPTH));
+        }
+        final Script script = ScriptHelper.getScript(id, true);
+        if (script == null) {
+            throw new IllegalArgumentException(Messages.scriptNotFound(id));
+        }
+        if (script.isLibrary()) {
+            throw new IllegalArgumentException(Messages.scriptIsLibrary(id));
+        }
+        final String source = script.getScriptText();
+        if (source == null) {
+            throw new IllegalArgumentException(Messages.scriptSourceNotFound(id));
+        }
+        synchronized (approved) {
+            if (!approved.contains(source)) {
+                if (!ScriptHelper.isApproved(source, false)) {
+                    throw new IllegalStateException(Messages.scriptNotApprovedYet(id));
+                }
+                approved.add(source);
+            }
+        }
+        final ControllerGroovyScript called =
+                new ControllerGroovyScript(source, script.getParameters(), true, listener, launcher, build);
+        called.setScriptId(script.getId());
+        called.setCompileStatic(script.isCompileStatic());
+        called.setInvoker(new ScriptInvoker(listener, launcher, build, depth + 1, approved));
+        return called.invoke(arguments);
+    }
+}
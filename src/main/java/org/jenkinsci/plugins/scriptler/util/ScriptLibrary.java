@@ -0,0 +1,256 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import groovy.lang.GroovyClassLoader;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.apache.commons.collections.map.LRUMap;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.config.ScriptSet;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Compiles the scripts flagged as library once into a shared class loader, which is put on the classpath of every
+ * other script, on the controller as well as on the agents. Library scripts are not run, they provide classes, e.g.
+ * with static helper methods, which all the scripts use without compiling them again.
+ * <p>
+ * The library is compiled again as soon as a library script changes. Its version is part of the keys the compiled
+ * scripts are pooled and cached with, so scripts get compiled against the new library.
+ */
+public final class ScriptLibrary {
+
+    private static final Logger LOGGER = Logger.getLogger(ScriptLibrary.class.getName());
+
+    private static final ScriptLibrary INSTANCE = new ScriptLibrary();
+
+    /**
+     * the class loaders defining the classes of the library, per class loader of the scripts; a library class loader
+     * references its parent, so it is only weakly referenced to let the key be collected, it is kept alive by the
+     * compiled scripts using it
+     */
+    private static final Map<ClassLoader, WeakReference<LibraryClassLoader>> CLASS_LOADERS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * the libraries an agent got from the controller, by version
+     */
+    @SuppressWarnings("unchecked")
+    private static final Map<String, Compiled> RECEIVED = Collections.synchronizedMap(new LRUMap(4));
+
+    @CheckForNull
+    private volatile Compiled compiled;
+
+    ScriptLibrary() {}
+
+    public static ScriptLibrary get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the library compiled last, <code>null</code> if there are no library scripts
+     */
+    @CheckForNull
+    public Compiled getCompiled() {
+        return compiled;
+    }
+
+    /**
+     * @return the version of the current library, an empty string if there are no library scripts
+     */
+    @NonNull
+    public String getVersion() {
+        return getVersion(compiled);
+    }
+
+    @NonNull
+    static String getVersion(@CheckForNull Compiled library) {
+        return library == null ? "" : library.version;
+    }
+
+    /**
+     * Keeps the given library on an agent, so it is not asked from the controller again.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void addReceived(@NonNull Compiled library) {
+        RECEIVED.put(library.version, library);
+    }
+
+    /**
+     * @param version the version of the library to put on the classpath of a script running on an agent
+     * @param controller the classes of the controller, asked for the library if the agent did not get it yet
+     * @return the library, <code>null</code> if there are no library scripts
+     * @throws IllegalStateException if the library scripts changed since the script got sent to the agent
+     */
+    @CheckForNull
+    static Compiled getReceived(@NonNull String version, @CheckForNull CompiledClasses controller) {
+        if (version.isEmpty()) {
+            return null;
+        }
+        Compiled library = RECEIVED.get(version);
+        if (library == null && controller != null) {
+            library = controller.getLibrary(version);
+            if (library != null) {
+                addReceived(library);
+            }
+        }
+        if (library == null) {
+            throw new IllegalStateException("the library scripts changed meanwhile, the script has to be run again");
+        }
+        return library;
+    }
+
+    /**
+     * Compiles the library scripts again, if any of them changed. Library scripts not approved yet are left out.
+     *
+     * @return <code>true</code> if the library changed
+     */
+    public synchronized boolean rebuild(@NonNull ScriptSet scripts, @NonNull Path scriptDirectory) {
+        final Map<String, String> sources = new TreeMap<>();
+        for (Script script : scripts.getScripts()) {
+            if (!script.isLibrary()) {
+                continue;
+            }
+            try {
+                final String source = ScriptHelper.readScriptFromFile(scriptDirectory.resolve(script.getScriptPath()));
+                // compiling can already execute code
+                if (ScriptHelper.isApproved(source, false)) {
+                    sources.put(script.getId(), source);
+                } else {
+                    LOGGER.log(Level.WARNING, "library script {0} is not approved yet", script.getId());
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "not able to read the library script " + script.getId());
+            }
+        }
+        final String version = sources.isEmpty() ? "" : ScriptHelper.digest(sources.toString());
+        if (version.equals(getVersion())) {
+            return false;
+        }
+        if (sources.isEmpty()) {
+            compiled = null;
+            return true;
+        }
+        try {
+            compiled = compile(version, sources, Jenkins.get().getPluginManager().uberClassLoader);
+            return true;
+        } catch (CompilationFailedException e) {
+            // keep the last working library, the errors are shown on the edit page of the library script
+            LOGGER.log(Level.WARNING, "not able to compile the library scripts: {0}", e.getMessage());
+            return false;
+        }
+    }
+
+    @NonNull
+    static Compiled compile(
+            @NonNull String version, @NonNull Map<String, String> sources, @NonNull ClassLoader classLoader) {
+        final CompilerConfiguration configuration = GroovyScript.createConfiguration(false);
+        final HashMap<String, byte[]> classes = new HashMap<>();
+        try (GroovyClassLoader groovyClassLoader = new GroovyClassLoader(classLoader, configuration)) {
+            // compiled together, so library scripts can use each other
+            final CompilationUnit unit = new CompilationUnit(configuration, null, groovyClassLoader);
+            sources.forEach(unit::addSource);
+            unit.compile(Phases.CLASS_GENERATION);
+            for (Object generated : unit.getClasses()) {
+                final GroovyClass groovyClass = (GroovyClass) generated;
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "not able to close the class loader used to compile the library", e);
+        }
+        return new Compiled(version, classes);
+    }
+
+    /**
+     * @param library the library to put on the classpath, may be <code>null</code>
+     * @param classLoader the class loader a script would be compiled with without library
+     * @return the class loader to compile the script with
+     */
+    @NonNull
+    static ClassLoader withLibrary(@CheckForNull Compiled library, @NonNull ClassLoader classLoader) {
+        if (library == null) {
+            return classLoader;
+        }
+        if (classLoader instanceof LookupCachingClassLoader lookups) {
+            // keep remembering the misses in front of the library
+            return LookupCachingClassLoader.wrap(library.getClassLoader(lookups.getParent()));
+        }
+        return library.getClassLoader(classLoader);
+    }
+
+    /**
+     * The classes the library scripts got compiled to, ready to be sent to an agent.
+     */
+    public static final class Compiled implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String version;
+        private final HashMap<String, byte[]> classes;
+
+        Compiled(@NonNull String version, @NonNull HashMap<String, byte[]> classes) {
+            this.version = version;
+            this.classes = classes;
+        }
+
+        @NonNull
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the class loader defining the classes of this library on top of the given one, shared by all the
+         *         scripts until the library changes, so the helpers get compiled and optimized only once
+         */
+        @NonNull
+        ClassLoader getClassLoader(@NonNull ClassLoader parent) {
+            synchronized (CLASS_LOADERS) {
+                WeakReference<LibraryClassLoader> reference = CLASS_LOADERS.get(parent);
+                LibraryClassLoader loader = reference == null ? null : reference.get();
+                if (loader == null || !loader.version.equals(version)) {
+                    loader = new LibraryClassLoader(parent, version, classes);
+                    CLASS_LOADERS.put(parent, new WeakReference<>(loader));
+                }
+                return loader;
+            }
+        }
+    }
+
+    private static final class LibraryClassLoader extends ClassLoader {
+        private final String version;
+        private final Map<String, byte[]> classes;
+
+        LibraryClassLoader(ClassLoader parent, String version, Map<String, byte[]> classes) {
+            super(parent);
+            this.version = version;
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            final byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            // only called by loadClass, holding the lock and after checking the classes loaded already
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
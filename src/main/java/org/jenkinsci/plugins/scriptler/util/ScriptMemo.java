@@ -0,0 +1,190 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * Values a script keeps between its executions, bound as <code>memo</code> to the scripts run on the built-in node,
+ * e.g. <code>memo.getOrCompute('lastSuccess', 600) { ... }</code> to reuse an expensive result for ten minutes.
+ * <p>
+ * Every version of a saved script gets a memo of its own, as it is looked up by the id of the script and the digest
+ * of the source, so two scripts with the same source do not share their values. The values are
+ * kept in memory only, the least recently used ones are dropped beyond <code>maxEntries</code> per script and the
+ * memos of the least recently run scripts beyond <code>maxScripts</code>, see {@link Store}.
+ */
+public final class ScriptMemo {
+
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(ScriptMemo.class.getName() + ".maxEntries", 100);
+
+    private static final int MAX_SCRIPTS =
+            SystemProperties.getInteger(ScriptMemo.class.getName() + ".maxScripts", 100);
+
+    /**
+     * the number of seconds a value is kept if no time is given
+     */
+    static final long DEFAULT_TTL = SystemProperties.getLong(ScriptMemo.class.getName() + ".defaultTtl", 3600L);
+
+    private static final Store STORE = new Store(MAX_SCRIPTS);
+
+    private final Map<String, Entry> entries;
+
+    @SuppressWarnings("unchecked")
+    ScriptMemo(int maxEntries) {
+        entries = Collections.synchronizedMap(new LRUMap(maxEntries));
+    }
+
+    /**
+     * @param id the id of the saved script, <code>null</code> for a script run from the console
+     * @param source the source of the script
+     * @return the memo of the given version of a script
+     */
+    @NonNull
+    public static ScriptMemo forScript(@CheckForNull String id, @NonNull String source) {
+        StringBuilder key = new StringBuilder();
+        ScriptHelper.appendLengthPrefixed(key, id);
+        return STORE.forScript(key.append(ScriptHelper.digest(source)).toString());
+    }
+
+    @NonNull
+    public static Store getStore() {
+        return STORE;
+    }
+
+    /**
+     * @return the value stored for the given key, <code>null</code> if there is none or it expired
+     */
+    @CheckForNull
+    public Object get(@NonNull String key) {
+        return get(key, System.currentTimeMillis());
+    }
+
+    @CheckForNull
+    Object get(@NonNull String key, long now) {
+        Entry entry = lookup(key, now);
+        return entry == null ? null : entry.value();
+    }
+
+    public void put(@NonNull String key, @CheckForNull Object value) {
+        put(key, value, DEFAULT_TTL);
+    }
+
+    /**
+     * @param ttlSeconds the number of seconds to keep the value, <code>0</code> keeps it until it gets dropped
+     */
+    public void put(@NonNull String key, @CheckForNull Object value, long ttlSeconds) {
+        put(key, value, ttlSeconds, System.currentTimeMillis());
+    }
+
+    void put(@NonNull String key, @CheckForNull Object value, long ttlSeconds, long now) {
+        long expiresAt = ttlSeconds > 0 ? now + TimeUnit.SECONDS.toMillis(ttlSeconds) : Long.MAX_VALUE;
+        entries.put(key, new Entry(value, expiresAt));
+    }
+
+    public Object getOrCompute(@NonNull String key, @NonNull Callable<?> computation) throws Exception {
+        return getOrCompute(key, DEFAULT_TTL, computation);
+    }
+
+    /**
+     * Returns the value stored for the given key, computing and storing it if there is none. Concurrent executions
+     * missing the same key compute the value each.
+     *
+     * @param ttlSeconds the number of seconds to keep a computed value, <code>0</code> keeps it until it gets dropped
+     * @param computation computes the value, e.g. a closure
+     */
+    public Object getOrCompute(@NonNull String key, long ttlSeconds, @NonNull Callable<?> computation)
+            throws Exception {
+        Entry entry = lookup(key, System.currentTimeMillis());
+        if (entry != null) {
+            return entry.value();
+        }
+        Object value = computation.call();
+        put(key, value, ttlSeconds);
+        return value;
+    }
+
+    public void remove(@NonNull String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @CheckForNull
+    private Entry lookup(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt() <= now) {
+            STORE.misses.incrementAndGet();
+            return null;
+        }
+        STORE.hits.incrementAndGet();
+        return entry;
+    }
+
+    private record Entry(Object value, long expiresAt) {}
+
+    /**
+     * The memos of all the scripts, with statistics shown on the settings page.
+     */
+    public static final class Store {
+        private final Map<String, ScriptMemo> memos;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        @SuppressWarnings("unchecked")
+        Store(int maxScripts) {
+            memos = Collections.synchronizedMap(new LRUMap(maxScripts));
+        }
+
+        @NonNull
+        ScriptMemo forScript(@NonNull String key) {
+            return memos.computeIfAbsent(key, k -> new ScriptMemo(MAX_ENTRIES));
+        }
+
+        public int getScripts() {
+            return memos.size();
+        }
+
+        public int getValues() {
+            synchronized (memos) {
+                return memos.values().stream().mapToInt(ScriptMemo::size).sum();
+            }
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        /**
+         * @return the percentage of lookups answered from the memos
+         */
+        public int getHitRate() {
+            long h = hits.get();
+            long total = h + misses.get();
+            return total == 0 ? 0 : (int) (h * 100 / total);
+        }
+
+        public void clear() {
+            memos.clear();
+            hits.set(0);
+            misses.set(0);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.config.ScriptSet;
+
+/**
+ * Compiles scripts in the background as soon as they are saved, so the first execution finds the compiled script in
+ * the pool of {@link GroovyScript} and compilation errors are reported before anybody runs the script.
+ * <p>
+ * Only approved scripts get compiled, as compiling Groovy code can already execute code (e.g. via AST
+ * transformations).
+ */
+public final class ScriptPrecompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(ScriptPrecompiler.class.getName());
+
+    private static final Map<String, Result> RESULTS = new ConcurrentHashMap<>();
+
+    private ScriptPrecompiler() {}
+
+    /**
+     * Compiles the given script in the background.
+     *
+     * @param id the id of the script
+     * @param source the source of the script
+     */
+    public static void schedule(@NonNull String id, @CheckForNull String source) {
+        schedule(id, source, false);
+    }
+
+    /**
+     * Compiles the given script in the background.
+     *
+     * @param id the id of the script
+     * @param source the source of the script
+     * @param compileStatic whether the script is compiled with <code>@CompileStatic</code>, the result then
+     *                      contains the type checking errors
+     */
+    public static void schedule(@NonNull String id, @CheckForNull String source, boolean compileStatic) {
+        if (source == null) {
+            RESULTS.remove(id);
+            return;
+        }
+        final String digest = digest(source, compileStatic);
+        RESULTS.put(id, new Result(digest, Status.PENDING, null));
+        Timer.get().submit(() -> compile(id, digest, source, compileStatic));
+    }
+
+    /**
+     * Compiles all the given scripts in the background, e.g. after the script directory got synchronized.
+     */
+    public static void scheduleAll(@NonNull ScriptSet scripts, @NonNull Path scriptDirectory) {
+        for (Script script : scripts.getScripts()) {
+            String source = null;
+            try {
+                source = ScriptHelper.readScriptFromFile(scriptDirectory.resolve(script.getScriptPath()));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> "not able to read the sources of " + script.getId());
+            }
+            schedule(script.getId(), source, script.isCompileStatic());
+        }
+    }
+
+    public static void remove(@NonNull String id) {
+        RESULTS.remove(id);
+    }
+
+    /**
+     * @param id the id of the script
+     * @param source the current source of the script
+     * @return the result of the last compilation, <code>null</code> if the current source was not compiled (yet)
+     */
+    @CheckForNull
+    public static Result getResult(@CheckForNull String id, @CheckForNull String source) {
+        return getResult(id, source, false);
+    }
+
+    /**
+     * @param id the id of the script
+     * @param source the current source of the script
+     * @param compileStatic whether the script is currently compiled with <code>@CompileStatic</code>
+     * @return the result of the last compilation, <code>null</code> if the current source was not compiled (yet)
+     */
+    @CheckForNull
+    public static Result getResult(@CheckForNull String id, @CheckForNull String source, boolean compileStatic) {
+        if (id == null || source == null) {
+            return null;
+        }
+        Result result = RESULTS.get(id);
+        if (result == null || !result.digest.equals(digest(source, compileStatic))) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * switching the compilation mode or changing the library invalidates the result just like changing the source does
+     */
+    private static String digest(String source, boolean compileStatic) {
+        String digest = ScriptHelper.digest(source) + ":" + ScriptLibrary.get().getVersion();
+        return compileStatic ? digest + ":static" : digest;
+    }
+
+    private static void compile(String id, String digest, String source, boolean compileStatic) {
+        Result result;
+        if (!ScriptHelper.isApproved(source, false)) {
+            result = new Result(digest, Status.NOT_APPROVED, null);
+        } else {
+            try {
+                GroovyScript.precompile(source, Jenkins.get().getPluginManager().uberClassLoader, compileStatic);
+                result = new Result(digest, Status.COMPILED, null);
+            } catch (CompilationFailedException e) {
+                result = new Result(digest, Status.FAILED, e.getMessage());
+            } catch (RuntimeException | LinkageError e) {
+                LOGGER.log(Level.WARNING, e, () -> "unexpected failure while compiling " + id);
+                result = new Result(digest, Status.FAILED, e.toString());
+            }
+        }
+        final Result compiled = result;
+        // do not overwrite the result of a newer version saved in the meantime
+        RESULTS.computeIfPresent(id, (key, current) -> current.digest.equals(digest) ? compiled : current);
+        LOGGER.log(Level.FINE, "compiled {0}: {1}", new Object[] {id, compiled.getStatus()});
+    }
+
+    public enum Status {
+        PENDING,
+        COMPILED,
+        FAILED,
+        NOT_APPROVED
+    }
+
+    /**
+     * The outcome of compiling a specific version of a script.
+     */
+    public static final class Result {
+        private final String digest;
+        private final Status status;
+        private final String diagnostics;
+
+        private Result(String digest, Status status, String diagnostics) {
+            this.digest = digest;
+            this.status = status;
+            this.diagnostics = diagnostics;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isFailed() {
+            return status == Status.FAILED;
+        }
+
+        public boolean isCompiled() {
+            return status == Status.COMPILED;
+        }
+
+        /**
+         * @return the compiler messages if the compilation failed
+         */
+        @CheckForNull
+        public String getDiagnostics() {
+            return diagnostics;
+        }
+    }
+}
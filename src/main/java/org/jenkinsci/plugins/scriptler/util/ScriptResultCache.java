@@ -0,0 +1,88 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.SystemProperties;
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * Keeps the output of idempotent scripts run via the REST API for the number of seconds configured on the script.
+ * Entries are keyed by {@link SharedExecutions#key(String, java.util.Collection, java.util.List)}, i.e. by the
+ * digest of the script, the parameters and the nodes.
+ */
+public final class ScriptResultCache {
+
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(ScriptResultCache.class.getName() + ".maxEntries", 200);
+
+    /**
+     * default limit of the size of a single cached output
+     */
+    static final int DEFAULT_MAX_BYTES =
+            SystemProperties.getInteger(ScriptResultCache.class.getName() + ".defaultMaxBytes", 1024 * 1024);
+
+    private static final ScriptResultCache INSTANCE = new ScriptResultCache(MAX_ENTRIES);
+
+    private final Map<String, Entry> entries;
+
+    @SuppressWarnings("unchecked")
+    ScriptResultCache(int maxEntries) {
+        entries = Collections.synchronizedMap(new LRUMap(maxEntries));
+    }
+
+    public static ScriptResultCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the cached output, <code>null</code> if there is none or it expired
+     */
+    @CheckForNull
+    public Entry get(@NonNull String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt() <= now) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the given output, unless it is bigger than allowed.
+     *
+     * @param ttlSeconds the number of seconds to keep the output
+     * @param maxBytes the maximum size of the output, <code>0</code> for the default
+     * @return <code>true</code> if the output got cached
+     */
+    public boolean put(@NonNull String key, @NonNull String output, int ttlSeconds, int maxBytes, long now) {
+        int limit = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+        // UTF-8 never uses more than 3 bytes per char, only count exactly if it could exceed the limit
+        if ((long) output.length() * 3 > limit && output.getBytes(StandardCharsets.UTF_8).length > limit) {
+            return false;
+        }
+        entries.put(key, new Entry(output, now + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        return true;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * A cached output.
+     *
+     * @param output the output of the script
+     * @param expiresAt the time the output must not be used anymore
+     */
+    public record Entry(String output, long expiresAt) {
+        /**
+         * @return the number of seconds the output may still be used, at least 1
+         */
+        public long remainingSeconds(long now) {
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(expiresAt - now));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.config.ScriptSet;
+import org.jenkinsci.plugins.scriptler.share.ScriptInfo;
+import org.jenkinsci.plugins.scriptler.share.ScriptInfoCatalog;
+
+/**
+ * In-memory inverted index over the metadata and sources of the local scripts and over the entries of the remote
+ * catalogs. The index is updated incrementally whenever a script is saved, removed or synchronized, so searching
+ * never has to touch the file system.
+ */
+public final class ScriptSearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ScriptSearchIndex.class.getName());
+
+    private static final ScriptSearchIndex INSTANCE = new ScriptSearchIndex();
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    // relative weight of a term depending on where it was found
+    private static final int WEIGHT_NAME = 8;
+    private static final int WEIGHT_ID = 6;
+    private static final int WEIGHT_PARAMETER = 4;
+    private static final int WEIGHT_COMMENT = 3;
+    private static final int WEIGHT_SOURCE = 1;
+
+    // a prefix match counts less than an exact match of the same term
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * term -> (document key -> weighted term frequency)
+     */
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+
+    /**
+     * document key -> document
+     */
+    private final Map<String, Document> documents = new HashMap<>();
+
+    private long catalogVersion = Long.MIN_VALUE;
+
+    ScriptSearchIndex() {}
+
+    public static ScriptSearchIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds or replaces the given local script in the index.
+     *
+     * @param script the script metadata
+     * @param source the script source, might be <code>null</code> if the source is not available
+     */
+    public void index(@CheckForNull Script script, @CheckForNull String source) {
+        if (script == null) {
+            return;
+        }
+        put(localDocument(script, source));
+    }
+
+    /**
+     * Removes the local script with the given id from the index.
+     */
+    public void remove(@CheckForNull String id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the part of the index covering the local scripts, e.g. after the script directory got synchronized.
+     *
+     * @param scripts the configured scripts
+     * @param scriptDirectory the directory to read the sources from
+     */
+    public void reindex(@NonNull ScriptSet scripts, @NonNull Path scriptDirectory) {
+        // reading the sources is slow, searches keep seeing the previous documents meanwhile
+        List<Document> localDocuments = new ArrayList<>();
+        for (Script script : scripts.getScripts()) {
+            String source = null;
+            try {
+                source = ScriptHelper.readScriptFromFile(scriptDirectory.resolve(script.getScriptPath()));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> "not able to index the sources of " + script.getId());
+            }
+            localDocuments.add(localDocument(script, source));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Document document : new ArrayList<>(documents.values())) {
+                if (document.catalog == null) {
+                    removeDocument(document.key);
+                }
+            }
+            localDocuments.forEach(this::putDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed catalog entries, as long as the given version differs from the one indexed before.
+     *
+     * @param version a value changing whenever the content of the catalogs changes
+     * @param catalogs the catalogs to index
+     */
+    public void indexCatalogs(long version, @NonNull List<ScriptInfoCatalog<ScriptInfo>> catalogs) {
+        lock.readLock().lock();
+        try {
+            if (version == catalogVersion) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Document> catalogDocuments = new ArrayList<>();
+        for (ScriptInfoCatalog<ScriptInfo> catalog : catalogs) {
+            final String catalogName = catalog.getInfo().name;
+            for (ScriptInfo info : catalog.getEntries()) {
+                Map<String, Integer> terms = new HashMap<>();
+                addTerms(terms, info.getId(), WEIGHT_ID);
+                addTerms(terms, info.getName(), WEIGHT_NAME);
+                addTerms(terms, info.getComment(), WEIGHT_COMMENT);
+                for (String parameter : info.getParameters()) {
+                    addTerms(terms, parameter, WEIGHT_PARAMETER);
+                }
+                catalogDocuments.add(new Document(
+                        catalogName + "/" + info.getId(),
+                        info.getId(),
+                        info.getName(),
+                        info.getComment(),
+                        catalogName,
+                        terms));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Document document : new ArrayList<>(documents.values())) {
+                if (document.catalog != null) {
+                    removeDocument(document.key);
+                }
+            }
+            catalogDocuments.forEach(this::putDocument);
+            catalogVersion = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index. All terms of the query must match (as a whole word or as a prefix of a word), the hits are
+     * ranked by the weighted frequency of the matching terms.
+     *
+     * @param query the search query
+     * @param limit the maximum number of hits to return
+     * @param filter restricts the hits which may be returned
+     * @return the hits, best one first
+     */
+    @NonNull
+    public List<Hit> search(@CheckForNull String query, int limit, @NonNull Predicate<Hit> filter) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<String, Double> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<String, Integer>> posting : postings
+                        .subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true)
+                        .entrySet()) {
+                    double factor = posting.getKey().equals(queryTerm) ? 1 : PREFIX_FACTOR;
+                    double idf = Math.log(1 + (double) documents.size() / posting.getValue().size());
+                    posting.getValue()
+                            .forEach((key, frequency) -> termScores.merge(key, factor * frequency * idf, Double::sum));
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // every term of the query has to match
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((key, score) -> score + termScores.get(key));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            for (Map.Entry<String, Double> score : scores.entrySet()) {
+                Document document = documents.get(score.getKey());
+                Hit hit = new Hit(document.id, document.name, document.comment, document.catalog, score.getValue());
+                if (filter.test(hit)) {
+                    hits.add(hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::score)
+                .reversed()
+                .thenComparing(hit -> hit.name() == null ? "" : hit.name(), String.CASE_INSENSITIVE_ORDER));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    private static Document localDocument(@NonNull Script script, @CheckForNull String source) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, script.getId(), WEIGHT_ID);
+        addTerms(terms, script.getName(), WEIGHT_NAME);
+        addTerms(terms, script.comment, WEIGHT_COMMENT);
+        for (Parameter parameter : script.getParameters()) {
+            addTerms(terms, parameter.getName(), WEIGHT_PARAMETER);
+        }
+        addTerms(terms, source, WEIGHT_SOURCE);
+        return new Document(script.getId(), script.getId(), script.getName(), script.comment, null, terms);
+    }
+
+    private void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            putDocument(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // must hold the write lock
+    private void putDocument(Document document) {
+        removeDocument(document.key);
+        documents.put(document.key, document);
+        document.terms.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.key, frequency));
+    }
+
+    // must hold the write lock
+    private void removeDocument(String key) {
+        Document old = documents.remove(key);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms.keySet()) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, @CheckForNull String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    @NonNull
+    static List<String> tokenize(@CheckForNull String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A single search result.
+     *
+     * @param id the id of the script
+     * @param name the name of the script
+     * @param comment the comment of the script
+     * @param catalog the name of the catalog the script is available from, <code>null</code> for local scripts
+     * @param score the relevance of the hit
+     */
+    public record Hit(String id, String name, String comment, @CheckForNull String catalog, double score) {
+        public boolean isLocal() {
+            return catalog == null;
+        }
+    }
+
+    private record Document(
+            String key,
+            String id,
+            String name,
+            String comment,
+            @CheckForNull String catalog,
+            Map<String, Integer> terms) {}
+}
@@ -0,0 +1,108 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+
+/**
+ * Lets concurrent executions of an idempotent script with the same input share a single execution: the first caller
+ * runs the script, all callers arriving while it is still running wait for and receive its output.
+ */
+public final class SharedExecutions {
+
+    private static final Map<String, InFlight> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private SharedExecutions() {}
+
+    /**
+     * Computes the key identifying the input of an execution.
+     *
+     * @param scriptText the source of the script
+     * @param parameters the parameters passed to the script
+     * @param computers the names of the nodes the script runs on
+     * @return the key
+     */
+    @NonNull
+    public static String key(
+            @NonNull String scriptText, @NonNull Collection<Parameter> parameters, @NonNull List<String> computers) {
+        List<Parameter> sorted = parameters.stream()
+                .sorted(Comparator.comparing(Parameter::getName, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        StringBuilder nodes = new StringBuilder();
+        computers.forEach(computer -> ScriptHelper.appendLengthPrefixed(nodes, computer));
+        return ScriptHelper.digest(scriptText) + '\n' + ScriptHelper.digestParameters(sorted) + '\n' + nodes;
+    }
+
+    /**
+     * Runs the given execution, unless an execution with the same key is already running, in which case its output
+     * is returned once it completes.
+     *
+     * @param key the key computed by {@link #key(String, Collection, List)}
+     * @param execution the execution
+     * @return the output of the execution
+     */
+    public static String run(@NonNull String key, @NonNull Execution execution) throws IOException, ServletException {
+        InFlight own = new InFlight(new CompletableFuture<>(), new AtomicInteger());
+        InFlight running = IN_FLIGHT.putIfAbsent(key, own);
+        if (running != null) {
+            running.joined().incrementAndGet();
+            return await(running.output());
+        }
+        try {
+            String output = execution.run();
+            own.output().complete(output);
+            return output;
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            own.output().completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, own);
+        }
+    }
+
+    /**
+     * @return the number of callers which joined the execution with the given key still running
+     */
+    static int getJoinedCallers(@NonNull String key) {
+        InFlight running = IN_FLIGHT.get(key);
+        return running == null ? 0 : running.joined().get();
+    }
+
+    private static String await(CompletableFuture<String> running) throws IOException, ServletException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof ServletException servletException) {
+                throw servletException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ServletException(cause);
+        }
+    }
+
+    private record InFlight(CompletableFuture<String> output, AtomicInteger joined) {}
+
+    /**
+     * An execution of a script.
+     */
+    @FunctionalInterface
+    public interface Execution {
+        String run() throws IOException, ServletException;
+    }
+}
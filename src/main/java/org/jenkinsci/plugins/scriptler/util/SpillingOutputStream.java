@@ -0,0 +1,269 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.scriptler.Messages;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+
+/**
+ * Collects the output of an ad-hoc run. Up to <code>maxInMemory</code> bytes are kept in memory; beyond that, the
+ * whole output is written to a file in <code>JENKINS_HOME/scriptler/outputs</code> and only its head and tail are
+ * kept in memory, so a script printing a huge collection cannot exhaust the heap of the controller.
+ * <p>
+ * The files are deleted after <code>retention</code> milliseconds, one day by default, see {@link Cleanup}.
+ */
+public final class SpillingOutputStream extends OutputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(SpillingOutputStream.class.getName());
+
+    static final int MAX_IN_MEMORY =
+            SystemProperties.getInteger(SpillingOutputStream.class.getName() + ".maxInMemory", 1024 * 1024);
+
+    private static final long RETENTION = SystemProperties.getLong(
+            SpillingOutputStream.class.getName() + ".retention", TimeUnit.DAYS.toMillis(1));
+
+    private static final String EXTENSION = ".log";
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+    private final Path directory;
+    private final int maxInMemory;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+    // set once the output got spilled to a file
+    private String id;
+    private OutputStream file;
+    private byte[] head;
+    // the last bytes written, starting at tailPosition
+    private byte[] tail;
+    private int tailPosition;
+    private long size;
+
+    public SpillingOutputStream() {
+        this(getDirectory(), MAX_IN_MEMORY);
+    }
+
+    SpillingOutputStream(@NonNull Path directory, int maxInMemory) {
+        this.directory = directory;
+        this.maxInMemory = maxInMemory;
+    }
+
+    @NonNull
+    private static Path getDirectory() {
+        return ScriptlerManagement.getScriptlerHomeDirectory2().resolve("outputs");
+    }
+
+    /**
+     * @return the file with the full output of the given id, <code>null</code> if there is none
+     */
+    @CheckForNull
+    public static Path getFile(@CheckForNull String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            return null;
+        }
+        Path file = getDirectory().resolve(id + EXTENSION);
+        return Files.isRegularFile(file) && !isExpired(file, System.currentTimeMillis() - RETENTION) ? file : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(@NonNull byte[] b, int off, int len) throws IOException {
+        size += len;
+        if (file == null) {
+            memory.write(b, off, len);
+            if (memory.size() > maxInMemory) {
+                spill();
+            }
+            return;
+        }
+        file.write(b, off, len);
+        addToTail(b, off, len);
+    }
+
+    private void spill() throws IOException {
+        Files.createDirectories(directory);
+        id = UUID.randomUUID().toString();
+        file = Files.newOutputStream(directory.resolve(id + EXTENSION));
+        byte[] bytes = memory.toByteArray();
+        memory = null;
+        file.write(bytes);
+        head = new byte[maxInMemory / 2];
+        System.arraycopy(bytes, 0, head, 0, head.length);
+        tail = new byte[maxInMemory - head.length];
+        addToTail(bytes, head.length, bytes.length - head.length);
+    }
+
+    private void addToTail(byte[] b, int off, int len) {
+        if (len >= tail.length) {
+            System.arraycopy(b, off + len - tail.length, tail, 0, tail.length);
+            tailPosition = 0;
+            return;
+        }
+        int first = Math.min(len, tail.length - tailPosition);
+        System.arraycopy(b, off, tail, tailPosition, first);
+        System.arraycopy(b, off + first, tail, 0, len - first);
+        tailPosition = (tailPosition + len) % tail.length;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * @return whether the output got too big to be kept in memory
+     */
+    public synchronized boolean isTruncated() {
+        return file != null;
+    }
+
+    /**
+     * @return the id to get the file with the full output from, <code>null</code> if the output is not truncated
+     * @see #getFile(String)
+     */
+    @CheckForNull
+    public synchronized String getId() {
+        return id;
+    }
+
+    /**
+     * @param downloadUrl the URL the full output is downloaded from, mentioned if the output is truncated
+     * @return the output, or its head and tail cut at line breaks with a line telling how much was left out
+     */
+    @NonNull
+    public synchronized String getText(@NonNull String downloadUrl) {
+        if (file == null) {
+            return memory.toString(StandardCharsets.UTF_8);
+        }
+        byte[] lastBytes = new byte[tail.length];
+        System.arraycopy(tail, tailPosition, lastBytes, 0, tail.length - tailPosition);
+        System.arraycopy(tail, 0, lastBytes, tail.length - tailPosition, tailPosition);
+        int headLength = headLength(head);
+        int tailStart = tailStart(lastBytes);
+        String first = new String(head, 0, headLength, StandardCharsets.UTF_8);
+        return first + (first.endsWith("\n") ? "" : "\n")
+                + Messages.outputTruncated(size - headLength - (lastBytes.length - tailStart), downloadUrl) + "\n"
+                + new String(lastBytes, tailStart, lastBytes.length - tailStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of bytes of the head to show: up to its last line break, or up to its last complete UTF-8
+     *         character if that would leave out more than half of it
+     */
+    static int headLength(@NonNull byte[] head) {
+        for (int i = head.length - 1; i >= head.length / 2; i--) {
+            if (head[i] == '\n') {
+                return i + 1;
+            }
+        }
+        int lead = head.length - 1;
+        while (lead >= 0 && head.length - lead < 4 && isContinuation(head[lead])) {
+            lead--;
+        }
+        if (lead < 0) {
+            return head.length;
+        }
+        int b = head[lead] & 0xFF;
+        int charLength = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return head.length - lead < charLength ? lead : head.length;
+    }
+
+    /**
+     * @return the index of the first byte of the tail to show: after its first line break, or at its first UTF-8
+     *         character if that would leave out more than half of it
+     */
+    static int tailStart(@NonNull byte[] tail) {
+        for (int i = 0; i < tail.length / 2; i++) {
+            if (tail[i] == '\n') {
+                return i + 1;
+            }
+        }
+        int start = 0;
+        while (start < Math.min(3, tail.length) && isContinuation(tail[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    private static boolean isExpired(Path file, long expired) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < expired;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void deleteExpired(@NonNull Path directory, long now) {
+        long expired = now - RETENTION;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .filter(file -> isExpired(file, expired))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            LOGGER.log(Level.FINE, e, () -> "not able to delete " + file);
+                        }
+                    });
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> "not able to list " + directory);
+        }
+    }
+
+    /**
+     * Deletes the expired files every hour, also when no output gets spilled anymore.
+     */
+    @Extension
+    public static final class Cleanup extends AsyncPeriodicWork {
+        public Cleanup() {
+            super("Scriptler outputs cleanup");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) {
+            Path directory = getDirectory();
+            if (Files.isDirectory(directory)) {
+                deleteExpired(directory, System.currentTimeMillis());
+            }
+        }
+    }
+}
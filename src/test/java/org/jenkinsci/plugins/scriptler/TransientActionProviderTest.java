@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.scriptler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import jenkins.model.Jenkins;
+import org.htmlunit.Page;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class TransientActionProviderTest {
+
+    private static final String USER = "user";
+
+    @Test
+    void sharesOneActionBetweenJobs(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("hello.groovy", "print 'hello'", true);
+        FreeStyleProject configurable = j.createFreeStyleProject("configurable");
+        FreeStyleProject readOnly = j.createFreeStyleProject("readOnly");
+
+        ScriptlerManagement action = configurable.getAction(ScriptlerManagement.class);
+        assertNotNull(action);
+        assertSame(action, readOnly.getAction(ScriptlerManagement.class));
+
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ, Item.READ)
+                .everywhere()
+                .to(USER)
+                .grant(Item.CONFIGURE)
+                .onItems(configurable)
+                .to(USER));
+
+        try (JenkinsRule.WebClient wc = j.createWebClient().login(USER)) {
+            // the permissions are checked on the job of the URL, as the action does not know its job
+            j.assertGoodStatus(wc.goTo("job/configurable/scriptler/showScript?id=hello.groovy"));
+
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            Page page = wc.goTo("job/readOnly/scriptler/showScript?id=hello.groovy");
+            assertEquals(403, page.getWebResponse().getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.jenkinsci.plugins.scriptler.builder;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ScriptlerBatchBuilderTest {
+
+    @Test
+    void scriptsShareVariablesOnAgent(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("first.groovy", "greeting = 'Hello'", true);
+        ScriptlerManagementHelper.saveScript("second.groovy", "println greeting + ' ' + name", true);
+
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.setAssignedNode(j.createOnlineSlave());
+        project.getBuildersList()
+                .add(new ScriptlerBatchBuilder(
+                        "batch",
+                        List.of(
+                                new ScriptlerBatchBuilder.Step("first.groovy", false, List.of()),
+                                new ScriptlerBatchBuilder.Step(
+                                        "second.groovy", false, List.of(new Parameter("name", "World"))))));
+
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+        j.assertLogContains("Hello World", build);
+    }
+
+    @Test
+    void scriptsShareNeitherParametersNorProvidedVariables(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("first.groovy", "greeting = name", true);
+        ScriptlerManagementHelper.saveScript(
+                "second.groovy",
+                "println greeting + ' ' + binding.hasVariable('name') + ' ' + memo.getOrCompute('k') { 'own' }",
+                true);
+        ScriptlerManagementHelper.saveScript("memo.groovy", "memo.put('k', 'shared')", true);
+
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.getBuildersList()
+                .add(new ScriptlerBatchBuilder(
+                        "batch",
+                        List.of(
+                                new ScriptlerBatchBuilder.Step(
+                                        "first.groovy", false, List.of(new Parameter("name", "Hello"))),
+                                new ScriptlerBatchBuilder.Step("memo.groovy", false, List.of()),
+                                new ScriptlerBatchBuilder.Step("second.groovy", false, List.of()))));
+
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+        j.assertLogContains("Hello false own", build);
+    }
+
+    @Test
+    void runsNoScriptIfOneIsNotUsable(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("usable.groovy", "println 'should not run'", true);
+        ScriptlerManagementHelper.saveScript("admin.groovy", "println 'admin only'", false);
+
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.getBuildersList()
+                .add(new ScriptlerBatchBuilder(
+                        "batch",
+                        List.of(
+                                new ScriptlerBatchBuilder.Step("usable.groovy", false, List.of()),
+                                new ScriptlerBatchBuilder.Step("admin.groovy", false, List.of()))));
+
+        FreeStyleBuild build = j.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+        j.assertLogNotContains("should not run", build);
+    }
+}
@@ -32,9 +32,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Item;
+import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Project;
+import hudson.model.StringParameterDefinition;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.List;
@@ -100,6 +103,26 @@ class ScriptlerBuilderTest {
         EqualsVerifier.forClass(ScriptlerBuilder.class).usingGetClass().verify();
     }
 
+    @Test
+    void expandsPropagatedAndDefinedParameters() throws Exception {
+        ScriptlerManagementHelper.saveScript(
+                "print_params.groovy", "println \"[$greeting] [$number] [$plain] [$expanded]\"", true);
+
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.addProperty(new ParametersDefinitionProperty(
+                new StringParameterDefinition("greeting", "Hello"),
+                new StringParameterDefinition("number", "${BUILD_NUMBER}")));
+        project.getBuildersList()
+                .add(new ScriptlerBuilder(
+                        "print",
+                        "print_params.groovy",
+                        true,
+                        List.of(new Parameter("plain", "value"), new Parameter("expanded", "${greeting} World"))));
+
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+        j.assertLogContains("[Hello] [1] [value] [Hello World]", build);
+    }
+
     @Test
     void configRoundTripWebUI() throws Exception {
         FreeStyleProject project = j.createFreeStyleProject("test");
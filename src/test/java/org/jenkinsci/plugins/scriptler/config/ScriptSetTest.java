@@ -2,8 +2,10 @@ package org.jenkinsci.plugins.scriptler.config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 public class ScriptSetTest {
@@ -28,4 +30,59 @@ public class ScriptSetTest {
 
         assertNotNull(scriptSet.getScripts(), "Internal set should be initialized after setter");
     }
+
+    @Test
+    public void testAddOrReplaceKeepsOptions() {
+        ScriptSet scriptSet = new ScriptSet();
+        scriptSet.addOrReplace(new Script("a.groovy", "A", null, true, List.of(), false));
+
+        Script updated = new Script("a.groovy", "A", "changed", true, List.of(), false);
+        updated.setWarmUpLabel(" linux && docker ");
+        scriptSet.addOrReplace(updated);
+
+        assertEquals("linux && docker", scriptSet.getScriptById("a.groovy").getWarmUpLabel());
+        assertEquals("linux && docker", scriptSet.getScriptById("a.groovy").copy().getWarmUpLabel());
+    }
+
+    @Test
+    public void testSnapshotsAreNotAffectedByModifications() {
+        ScriptSet scriptSet = new ScriptSet();
+        scriptSet.addOrReplace(new Script("a.groovy", "A", null, true, List.of(), false));
+        scriptSet.addOrReplace(new Script("b.groovy", "B", null, true, List.of(), false));
+
+        int seen = 0;
+        for (Script script : scriptSet.getScripts()) {
+            // modifying while iterating must neither fail nor change the iterated snapshot
+            scriptSet.removeScript(script.getId());
+            scriptSet.addOrReplace(new Script("c" + seen + ".groovy", "C", null, true, List.of(), false));
+            seen++;
+        }
+
+        assertEquals(2, seen);
+        assertEquals(2, scriptSet.getScripts().size());
+        assertNotNull(scriptSet.getScriptById("c0.groovy"));
+    }
+
+    @Test
+    public void testDerivedViewsFollowModifications() {
+        ScriptSet scriptSet = new ScriptSet();
+        scriptSet.addOrReplace(new Script("a.groovy", "Zeta", null, true, List.of(), false));
+        scriptSet.addOrReplace(new Script("b.groovy", "alpha", null, false, List.of(), false));
+        scriptSet.addOrReplace(new Script("c.groovy", "Beta", null, true, List.of(), false));
+
+        assertEquals(
+                List.of("b.groovy", "c.groovy", "a.groovy"),
+                scriptSet.getScriptsSortedByName().stream().map(Script::getId).toList());
+        assertEquals(
+                List.of("c.groovy", "a.groovy"),
+                scriptSet.getUserScriptsSortedByName().stream().map(Script::getId).toList());
+        assertEquals(2, scriptSet.getUserScripts().size());
+
+        scriptSet.removeScript("c.groovy");
+
+        assertEquals(
+                List.of("a.groovy"),
+                scriptSet.getUserScriptsSortedByName().stream().map(Script::getId).toList());
+        assertNull(scriptSet.getScriptById("c.groovy"));
+    }
 }
@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.scriptler.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ScriptlerConfigurationTest {
+
+    @Test
+    void migratesMetadataBetweenStorageModes(JenkinsRule j) throws Exception {
+        ScriptlerConfiguration cfg = ScriptlerConfiguration.getConfiguration();
+        cfg.addOrReplace(new Script("first.groovy", "First", "a comment", true, List.of(), false));
+        cfg.addOrReplace(new Script("second.groovy", "Second", null, false, List.of(), false));
+        cfg.save();
+
+        Path metadata = ScriptlerManagement.getScriptlerHomeDirectory2().resolve("metadata");
+        assertFalse(Files.exists(metadata));
+
+        cfg.setShardedMetadata(true);
+        cfg.save();
+
+        assertTrue(Files.exists(metadata.resolve("first.groovy.xml")));
+        assertTrue(Files.exists(metadata.resolve("second.groovy.xml")));
+        assertFalse(ScriptlerConfiguration.getXmlFile().asString().contains("first.groovy"));
+
+        ScriptlerConfiguration loaded = ScriptlerConfiguration.load();
+        assertTrue(loaded.isShardedMetadata());
+        assertNotNull(loaded.getScriptById("first.groovy"));
+        assertNotNull(loaded.getScriptById("second.groovy"));
+        assertEquals("a comment", loaded.getScriptById("first.groovy").comment);
+
+        cfg.removeScript("second.groovy");
+        cfg.save();
+        assertFalse(Files.exists(metadata.resolve("second.groovy.xml")));
+
+        cfg.setShardedMetadata(false);
+        cfg.save();
+
+        assertFalse(Files.exists(metadata));
+        assertTrue(ScriptlerConfiguration.getXmlFile().asString().contains("first.groovy"));
+        loaded = ScriptlerConfiguration.load();
+        assertNotNull(loaded.getScriptById("first.groovy"));
+        assertNull(loaded.getScriptById("second.groovy"));
+    }
+}
@@ -1,5 +1,7 @@
 package org.jenkinsci.plugins.scriptler.restapi;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -11,6 +13,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import net.sf.json.JSONObject;
 import org.htmlunit.FailingHttpStatusCodeException;
 import org.htmlunit.HttpMethod;
 import org.htmlunit.Page;
@@ -19,6 +22,7 @@ import org.htmlunit.html.*;
 import org.htmlunit.util.NameValuePair;
 import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
 import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.jenkinsci.plugins.scriptler.config.Script;
 import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -126,4 +130,107 @@ class ScriptlerRestApiTest {
             assertTrue(e.getResponse().getContentAsString().contains("Invalid file path received: " + path));
         }
     }
+
+    @Test
+    void testCachesOutputOfIdempotentScript() throws Exception {
+        ScriptlerManagementHelper.saveScript("uuid.groovy", "print UUID.randomUUID()", true);
+        Script script = ScriptlerConfiguration.getConfiguration().getScriptById("uuid.groovy");
+        script.setIdempotent(true);
+        script.setResultCacheTtl(60);
+
+        try (JenkinsRule.WebClient webClient = j.createWebClient()) {
+            Page first = run(webClient, "uuid.groovy", false);
+            Page second = run(webClient, "uuid.groovy", false);
+            Page bypassed = run(webClient, "uuid.groovy", true);
+
+            String output = first.getWebResponse().getContentAsString();
+            assertEquals(output, second.getWebResponse().getContentAsString());
+            int remaining =
+                    Integer.parseInt(second.getWebResponse().getResponseHeaderValue("X-Scriptler-Cache-Remaining"));
+            assertTrue(remaining > 0 && remaining <= 60);
+            assertNotEquals(output, bypassed.getWebResponse().getContentAsString());
+        }
+    }
+
+    private Page run(JenkinsRule.WebClient webClient, String scriptId, boolean bypassCache) throws Exception {
+        URL url = new URL(webClient.getContextPath() + "scriptler/run/" + scriptId);
+        WebRequest req = new WebRequest(url, HttpMethod.POST);
+        req.setRequestParameters(List.of(new NameValuePair("bypassCache", String.valueOf(bypassCache))));
+        webClient.addCrumb(req);
+        return webClient.getPage(req);
+    }
+
+    @Test
+    void testMapReduceOverAllNodes() throws Exception {
+        j.createOnlineSlave();
+        ScriptlerManagementHelper.saveScript("map.groovy", "return 20", true);
+        ScriptlerManagementHelper.saveScript(
+                "reduce.groovy", "if (error) throw error\nreturn (accumulator ?: 1) + result", true);
+
+        try (JenkinsRule.WebClient webClient = j.createWebClient()) {
+            URL url = new URL(webClient.getContextPath() + "scriptler/mapReduce/map.groovy");
+            WebRequest req = new WebRequest(url, HttpMethod.POST);
+            req.setRequestParameters(List.of(new NameValuePair("reduce", "reduce.groovy")));
+            webClient.addCrumb(req);
+            Page page = webClient.getPage(req);
+
+            assertEquals("41", page.getWebResponse().getContentAsString());
+
+            JSONObject execution = getLatestExecution(webClient);
+            assertEquals("map.groovy", execution.getString("scriptId"));
+            assertEquals("success", execution.getString("status"));
+        }
+    }
+
+    @Test
+    void testStreamsOneRecordPerNode() throws Exception {
+        j.createOnlineSlave();
+        ScriptlerManagementHelper.saveScript("answer.groovy", "print 'thinking'\nreturn 42", true);
+
+        try (JenkinsRule.WebClient webClient = j.createWebClient()) {
+            URL url = new URL(webClient.getContextPath() + "scriptler/run/answer.groovy");
+            WebRequest req = new WebRequest(url, HttpMethod.POST);
+            req.setAdditionalHeader("Accept", "application/x-ndjson");
+            req.setRequestParameters(List.of(new NameValuePair("node", "(all)")));
+            webClient.addCrumb(req);
+            Page page = webClient.getPage(req);
+
+            String[] lines = page.getWebResponse().getContentAsString().split("\n");
+            assertEquals(2, lines.length);
+            for (String line : lines) {
+                JSONObject record = JSONObject.fromObject(line);
+                assertEquals("success", record.getString("status"));
+                assertEquals(42, record.getInt("result"));
+                assertTrue(record.getString("output").contains("thinking"));
+            }
+        }
+    }
+
+    @Test
+    void testRecordsStreamedRun() throws Exception {
+        ScriptlerManagementHelper.saveScript("failing.groovy", "throw new IllegalStateException('broken')", true);
+
+        try (JenkinsRule.WebClient webClient = j.createWebClient()) {
+            URL url = new URL(webClient.getContextPath() + "scriptler/run/failing.groovy");
+            WebRequest req = new WebRequest(url, HttpMethod.POST);
+            req.setAdditionalHeader("Accept", "application/x-ndjson");
+            webClient.addCrumb(req);
+            String records = webClient.getPage(req).getWebResponse().getContentAsString();
+
+            JSONObject execution = getLatestExecution(webClient);
+            assertEquals("failing.groovy", execution.getString("scriptId"));
+            assertEquals("failure", execution.getString("status"));
+
+            // the streamed records are the recorded output
+            Page output = webClient.goTo("scriptler/executionOutput?id=" + execution.getString("id"), "text/plain");
+            assertEquals(records, output.getWebResponse().getContentAsString());
+        }
+    }
+
+    private static JSONObject getLatestExecution(JenkinsRule.WebClient webClient) throws Exception {
+        Page page = webClient.goTo("scriptler/executions?limit=1", "application/json");
+        JSONObject executions = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals(1, executions.getJSONArray("executions").size());
+        return executions.getJSONArray("executions").getJSONObject(0);
+    }
 }
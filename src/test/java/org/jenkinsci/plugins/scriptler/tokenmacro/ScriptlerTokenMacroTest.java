@@ -1,11 +1,17 @@
 package org.jenkinsci.plugins.scriptler.tokenmacro;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.util.StreamTaskListener;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -14,6 +20,9 @@ import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 @WithJenkins
 class ScriptlerTokenMacroTest {
 
+    // counts the executions of the script in testCachesOutputPerBuild
+    public static final AtomicInteger EXECUTIONS = new AtomicInteger();
+
     @Test
     void testExecutesScript(JenkinsRule j) throws Exception {
         ScriptlerManagementHelper.saveScript("dummy.groovy", "return \"hello world ${build.number}\"", true);
@@ -25,4 +34,46 @@ class ScriptlerTokenMacroTest {
 
         assertEquals("hello world 1", TokenMacro.expand(b, listener, "${SCRIPTLER,scriptId=\"dummy.groovy\"}"));
     }
+
+    @Test
+    void testBindsArgumentsToParameters(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("greet.groovy", "return \"$greeting $name\"", true);
+        ScriptlerConfiguration.getConfiguration()
+                .getScriptById("greet.groovy")
+                .setParameters(List.of(new Parameter("greeting", "hello"), new Parameter("name", "world")));
+
+        FreeStyleProject p = j.createFreeStyleProject("foo");
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+
+        final StreamTaskListener listener = StreamTaskListener.fromStdout();
+
+        assertEquals("hello world", TokenMacro.expand(b, listener, "${SCRIPTLER,scriptId=\"greet.groovy\"}"));
+        assertEquals(
+                "hello jenkins",
+                TokenMacro.expand(b, listener, "${SCRIPTLER,scriptId=\"greet.groovy\",name=\"jenkins\"}"));
+        assertThrows(
+                MacroEvaluationException.class,
+                () -> TokenMacro.expand(b, listener, "${SCRIPTLER,scriptId=\"greet.groovy\",unknown=\"value\"}"));
+    }
+
+    @Test
+    void testCachesOutputPerBuild(JenkinsRule j) throws Exception {
+        EXECUTIONS.set(0);
+        ScriptlerManagementHelper.saveScript(
+                "counter.groovy",
+                "return " + ScriptlerTokenMacroTest.class.getName() + ".EXECUTIONS.getAndIncrement()",
+                true);
+
+        FreeStyleProject p = j.createFreeStyleProject("foo");
+        FreeStyleBuild b1 = p.scheduleBuild2(0).get();
+        FreeStyleBuild b2 = p.scheduleBuild2(0).get();
+
+        final StreamTaskListener listener = StreamTaskListener.fromStdout();
+        final String macro = "${SCRIPTLER,scriptId=\"counter.groovy\",cache=\"build\"}";
+
+        assertEquals("0", TokenMacro.expand(b1, listener, macro));
+        assertEquals("0", TokenMacro.expand(b1, listener, macro));
+        assertEquals("1", TokenMacro.expand(b2, listener, macro));
+        assertEquals("2", TokenMacro.expand(b2, listener, "${SCRIPTLER,scriptId=\"counter.groovy\"}"));
+    }
 }
@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BytecodeCacheTest {
+
+    private static final ClassLoader CLASS_LOADER = BytecodeCacheTest.class.getClassLoader();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsStoredBytecodeWithoutCompiling() {
+        final String source = "def greet(name) { [1, 2].collect { it * 2 }.join(',') + ' ' + name }\nreturn greet('x')";
+        new BytecodeCache(directory, 10, 10).getOrCompile(source, false, "", CLASS_LOADER, true);
+
+        // a fresh cache, e.g. after a restart, finds the bytecode on disk
+        BytecodeCache.CompiledScript compiled = new BytecodeCache(directory, 10, 10).lookup(source, false, "");
+        assertNotNull(compiled);
+        // closures are compiled to classes of their own
+        assertEquals("2,4 x", compiled.newScript(CLASS_LOADER).run());
+
+        // the compiler options are part of the key
+        assertNull(new BytecodeCache(directory, 10, 10).lookup(source, true, ""));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, 2, 10);
+        cache.getOrCompile("return 1", false, "", CLASS_LOADER, true);
+        cache.getOrCompile("return 2", false, "", CLASS_LOADER, true);
+        cache.lookup("return 1", false, "");
+        cache.getOrCompile("return 3", false, "", CLASS_LOADER, true);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        BytecodeCache restarted = new BytecodeCache(directory, 2, 10);
+        assertNotNull(restarted.lookup("return 1", false, ""));
+        assertNull(restarted.lookup("return 2", false, ""));
+    }
+
+    @Test
+    void keepsUnsavedScriptsInMemory() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, 10, 10);
+        cache.getOrCompile("return 1", false, "", CLASS_LOADER, false);
+
+        assertNotNull(cache.lookup("return 1", false, ""));
+        assertNull(new BytecodeCache(directory, 10, 10).lookup("return 1", false, ""));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void doesNotStoreBrokenScripts() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, 10, 10);
+        assertThrows(
+                CompilationFailedException.class,
+                () -> cache.getOrCompile("return 'broken", false, "", CLASS_LOADER, true));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CoalescingOutputStreamTest {
+
+    @Test
+    void writesFullBuffersOnly() throws IOException {
+        CountingOutputStream target = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(target, 8, TimeUnit.HOURS.toMillis(1));
+
+        out.write("abc".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        out.write("defgh".getBytes(StandardCharsets.UTF_8));
+        assertEquals("", target.toString(StandardCharsets.UTF_8));
+
+        out.write('i');
+        assertEquals("abcdefgh", target.toString(StandardCharsets.UTF_8));
+        assertEquals(1, target.writes.get());
+
+        out.close();
+        assertEquals("abcdefghi", target.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void flushesAfterInterval() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        ByteArrayOutputStream target = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed.countDown();
+            }
+        };
+        CoalescingOutputStream out = new CoalescingOutputStream(target, 1024, 10);
+
+        out.write("line\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(flushed.await(10, TimeUnit.SECONDS));
+        assertEquals("line\n", target.toString(StandardCharsets.UTF_8));
+    }
+
+    private static final class CountingOutputStream extends ByteArrayOutputStream {
+        private final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes.incrementAndGet();
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExecutionHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pagesThroughRunsNewestFirst() throws IOException {
+        ExecutionHistory history = new ExecutionHistory(directory, TimeUnit.DAYS.toMillis(1), Long.MAX_VALUE);
+        record(history, "first.groovy", "output 1", true);
+        record(history, "second.groovy", "output 2", false);
+        String id = record(history, "third.groovy", "output 3", true);
+
+        ExecutionHistory.Page page = history.getRuns(0, 2);
+        assertEquals(3, page.total());
+        assertEquals(
+                List.of("third.groovy", "second.groovy"),
+                page.runs().stream().map(run -> run.getString("scriptId")).toList());
+        JSONObject newest = page.runs().get(0);
+        assertEquals("user", newest.getString("user"));
+        assertEquals("success", newest.getString("status"));
+        assertEquals("failure", page.runs().get(1).getString("status"));
+        assertEquals(ScriptHelper.digest("return 'third.groovy'"), newest.getString("digest"));
+
+        assertEquals(
+                List.of("first.groovy"),
+                history.getRuns(2, 2).runs().stream()
+                        .map(run -> run.getString("scriptId"))
+                        .toList());
+
+        Path output = history.getOutput(id);
+        assertNotNull(output);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(output))) {
+            assertEquals("output 3", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertNull(history.getOutput("../index"));
+    }
+
+    @Test
+    void removesOldestRunsBeyondMaximumSize() throws IOException {
+        ExecutionHistory history = new ExecutionHistory(directory, TimeUnit.DAYS.toMillis(1), 1);
+        String oldest = record(history, "first.groovy", "output 1", true);
+        String newest = record(history, "second.groovy", "output 2", true);
+
+        history.compact(System.currentTimeMillis());
+
+        // the newest run alone is already beyond the maximum size, so none is kept
+        assertEquals(0, history.getRuns(0, 10).total());
+        assertNull(history.getOutput(oldest));
+        assertNull(history.getOutput(newest));
+    }
+
+    @Test
+    void removesExpiredRuns() throws IOException {
+        ExecutionHistory history = new ExecutionHistory(directory, TimeUnit.DAYS.toMillis(1), Long.MAX_VALUE);
+        String id = record(history, "first.groovy", "output", true);
+
+        history.compact(System.currentTimeMillis());
+        assertEquals(1, history.getRuns(0, 10).total());
+
+        history.compact(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(2));
+        assertEquals(0, history.getRuns(0, 10).total());
+        assertNull(history.getOutput(id));
+    }
+
+    @Test
+    void compactsRunsRecordedBeforeStart() throws IOException {
+        ExecutionHistory before = new ExecutionHistory(directory, TimeUnit.DAYS.toMillis(1), Long.MAX_VALUE);
+        record(before, "first.groovy", "output 1", true);
+        record(before, "second.groovy", "output 2", true);
+
+        // the same directory after a restart with a lower maximum size
+        ExecutionHistory after = new ExecutionHistory(directory, TimeUnit.DAYS.toMillis(1), 1);
+        record(after, "third.groovy", "output 3", true);
+
+        // every run is beyond the maximum size, so none is kept
+        assertEquals(0, after.getRuns(0, 10).total());
+    }
+
+    private static String record(ExecutionHistory history, String scriptId, String output, boolean success)
+            throws IOException {
+        ExecutionHistory.Recording recording =
+                history.start(scriptId, "return '" + scriptId + "'", List.of("built-in"), "user");
+        recording.write(output.getBytes(StandardCharsets.UTF_8));
+        recording.finish(success);
+        return recording.getId();
+    }
+}
@@ -2,6 +2,7 @@ package org.jenkinsci.plugins.scriptler.util;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import hudson.util.StreamTaskListener;
@@ -56,6 +57,28 @@ class GroovyScriptTest {
         assertEquals("secondOne", sos.toString());
     }
 
+    @Test
+    void compileStatic() {
+        ByteArrayOutputStream sos = new ByteArrayOutputStream();
+        GroovyScript gs = newInstance(
+                sos,
+                "int twice(int x) { x * 2 }\n((PrintStream) binding.getVariable('out')).print(twice(arg as int))",
+                new Parameter("arg", "21"));
+        gs.setCompileStatic(true);
+        gs.call();
+        assertEquals("42", sos.toString());
+
+        // bound variables are not known to the type checker
+        GroovyScript undeclared = newInstance(sos, "out.print arg", new Parameter("arg", "value"));
+        undeclared.setCompileStatic(true);
+        assertThrows(RuntimeException.class, undeclared::call);
+
+        // the dynamically compiled script does not get the statically compiled one from the pool and vice versa
+        sos.reset();
+        newInstance(sos, "out.print arg", new Parameter("arg", "value")).call();
+        assertEquals("value", sos.toString());
+    }
+
     @Test
     void threadSafety() throws InterruptedException {
         ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(100);
@@ -77,6 +100,21 @@ class GroovyScriptTest {
         }
     }
 
+    @Test
+    void writesBufferedOutputIfLibraryIsMissing() {
+        ByteArrayOutputStream sos = new ByteArrayOutputStream();
+        GroovyScript gs = new GroovyScript(
+                "return true", List.of(), false, new StreamTaskListener(sos, StandardCharsets.UTF_8)) {
+            @Override
+            protected ScriptLibrary.Compiled getLibrary() {
+                throw new IllegalStateException("library not available");
+            }
+        };
+
+        assertEquals(Boolean.FALSE, gs.call());
+        assertTrue(sos.toString(StandardCharsets.UTF_8).contains("library not available"));
+    }
+
     private Runnable createWork(final List<AssertionError> assertionErrors, final int number) {
         return () -> {
             ByteArrayOutputStream sos = new ByteArrayOutputStream();
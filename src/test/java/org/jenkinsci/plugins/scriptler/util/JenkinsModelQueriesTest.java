@@ -0,0 +1,48 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class JenkinsModelQueriesTest {
+
+    @Test
+    void findsJobsInFolders(JenkinsRule j) throws Exception {
+        j.createFreeStyleProject("top");
+        MockFolder folder = j.createFolder("folder");
+        folder.createProject(FreeStyleProject.class, "nested");
+
+        List<String> names = JenkinsModelQueries.get()
+                .jobs()
+                .map(job -> job.getFullName())
+                .sorted()
+                .toList();
+        assertEquals(List.of("folder/nested", "top"), names);
+    }
+
+    @Test
+    void stopsAtBuildsOlderThanRequested(JenkinsRule j) throws Exception {
+        FreeStyleProject project = j.createFreeStyleProject();
+        j.buildAndAssertSuccess(project);
+        FreeStyleBuild second = j.buildAndAssertSuccess(project);
+        FreeStyleBuild third = j.buildAndAssertSuccess(project);
+
+        List<Integer> numbers = JenkinsModelQueries.get()
+                .builds(project, second.getTimeInMillis())
+                .map(Run::getNumber)
+                .toList();
+        assertEquals(List.of(third.getNumber(), second.getNumber()), numbers);
+
+        assertEquals(
+                List.of(third.getNumber()),
+                JenkinsModelQueries.get().builds(1).map(Run::getNumber).toList());
+    }
+}
@@ -0,0 +1,61 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LookupCachingClassLoaderTest {
+
+    @Test
+    void remembersMissesAcrossInstances() throws Exception {
+        AtomicInteger parentLookups = new AtomicInteger();
+        ClassLoader parent = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                parentLookups.incrementAndGet();
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        LookupCachingClassLoader first = LookupCachingClassLoader.wrap(parent);
+        assertSame(String.class, first.loadClass("java.lang.String"));
+        assertThrows(ClassNotFoundException.class, () -> first.loadClass("does.not.Exist"));
+        assertNull(first.getResource("does/not/exist.groovy"));
+        assertEquals(2, parentLookups.get());
+        assertEquals(3, first.getDelegatedLookups());
+
+        LookupCachingClassLoader second = LookupCachingClassLoader.wrap(parent);
+        assertThrows(ClassNotFoundException.class, () -> second.loadClass("does.not.Exist"));
+        assertNull(second.getResource("does/not/exist.groovy"));
+        assertEquals(2, parentLookups.get());
+        assertEquals(0, second.getDelegatedLookups());
+        assertEquals(2, second.getCachedMisses());
+    }
+
+    @Test
+    void forgetsExpiredMisses() throws Exception {
+        AtomicInteger parentLookups = new AtomicInteger();
+        ClassLoader parent = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                parentLookups.incrementAndGet();
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        long now = System.currentTimeMillis();
+        LookupCachingClassLoader first = LookupCachingClassLoader.wrap(parent, now);
+        assertThrows(ClassNotFoundException.class, () -> first.loadClass("does.not.Exist"));
+        assertEquals(1, parentLookups.get());
+
+        LookupCachingClassLoader later = LookupCachingClassLoader.wrap(parent, now + TimeUnit.DAYS.toMillis(1));
+        assertThrows(ClassNotFoundException.class, () -> later.loadClass("does.not.Exist"));
+        assertEquals(2, parentLookups.get());
+        assertEquals(1, later.getDelegatedLookups());
+    }
+}
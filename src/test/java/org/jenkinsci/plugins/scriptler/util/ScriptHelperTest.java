@@ -2,11 +2,14 @@ package org.jenkinsci.plugins.scriptler.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
 import org.jenkinsci.plugins.scriptler.share.ScriptInfo;
 import org.junit.jupiter.api.Test;
 
@@ -26,4 +29,17 @@ class ScriptHelperTest {
         assertEquals("Dude mac", info.getAuthors().get(0).getName());
         assertEquals("param1", info.getParameters().get(0));
     }
+
+    @Test
+    void testDigestParametersSeparatesNamesAndValues() {
+        assertNotEquals(
+                ScriptHelper.digestParameters(List.of(new Parameter("a", "b, c=d"))),
+                ScriptHelper.digestParameters(List.of(new Parameter("a", "b"), new Parameter("c", "d"))));
+        assertNotEquals(
+                ScriptHelper.digestParameters(List.of(new Parameter("ab", "c"))),
+                ScriptHelper.digestParameters(List.of(new Parameter("a", "bc"))));
+        assertEquals(
+                ScriptHelper.digestParameters(List.of(new Parameter("a", "b"))),
+                ScriptHelper.digestParameters(List.of(new Parameter("a", "b"))));
+    }
 }
@@ -0,0 +1,44 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.NodeNames;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ScriptInvokerTest {
+
+    @Test
+    void scriptsCallEachOther(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("double.groovy", "return value * 2", true);
+        ScriptlerManagementHelper.saveScript(
+                "caller.groovy", "return scriptler.run('double.groovy', [value: 21]) as String", true);
+
+        String output = ScriptHelper.runScript(
+                NodeNames.BUILT_IN, ScriptHelper.getScript("caller.groovy", true).getScriptText(), List.of());
+        assertTrue(output.contains("42"), output);
+    }
+
+    @Test
+    void limitsTheDepthOfCalls(JenkinsRule j) throws Exception {
+        ScriptlerManagementHelper.saveScript("endless.groovy", "return scriptler.run('endless.groovy')", true);
+
+        String output = ScriptHelper.runScript(
+                NodeNames.BUILT_IN, ScriptHelper.getScript("endless.groovy", true).getScriptText(), List.of());
+        assertTrue(output.contains(ScriptInvoker.MAX_DEPTH + " levels deep"), output);
+    }
+
+    @Test
+    void declaredParameterHidesTheInvoker(JenkinsRule j) throws Exception {
+        String source = "return 'got ' + scriptler";
+        ScriptHelper.putScriptInApprovalQueueIfRequired(source);
+        String output =
+                ScriptHelper.runScript(NodeNames.BUILT_IN, source, List.of(new Parameter("scriptler", "a value")));
+        assertTrue(output.contains("got a value"), output);
+    }
+}
@@ -0,0 +1,42 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.NodeNames;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagement;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.jenkinsci.plugins.scriptler.config.ScriptlerConfiguration;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ScriptLibraryTest {
+
+    @Test
+    void scriptsUseTheLibraryOnAllNodes(JenkinsRule j) throws Exception {
+        String agent = j.createOnlineSlave().getNodeName();
+        ScriptlerManagementHelper.saveScript(
+                "helpers.groovy", "class Helpers {\n  static String greet(String name) { 'hello ' + name }\n}", true);
+
+        ScriptlerConfiguration cfg = ScriptlerConfiguration.getConfiguration();
+        Script library = cfg.getScriptById("helpers.groovy").copy();
+        library.setLibrary(true);
+        cfg.addOrReplace(library);
+        assertTrue(ScriptLibrary.get().rebuild(cfg, ScriptlerManagement.getScriptDirectory2()));
+        // library scripts are not offered to build steps
+        assertTrue(cfg.getUserScriptsSortedByName().stream().noneMatch(Script::isLibrary));
+
+        String source = "return Helpers.greet('scriptler')";
+        ScriptHelper.putScriptInApprovalQueueIfRequired(source);
+        String output = ScriptHelper.runScript(List.of(NodeNames.BUILT_IN, agent), source, List.of());
+        assertEquals(2, output.split("hello scriptler", -1).length - 1, output);
+
+        // the library is only compiled again if a library script changed
+        assertFalse(ScriptLibrary.get().rebuild(cfg, ScriptlerManagement.getScriptDirectory2()));
+    }
+}
@@ -0,0 +1,60 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ScriptMemoTest {
+
+    @Test
+    void expiresValues() {
+        ScriptMemo memo = new ScriptMemo(10);
+        memo.put("key", "value", 30, 1_000);
+        memo.put("forever", "value", 0, 1_000);
+
+        assertEquals("value", memo.get("key", 30_999));
+        assertNull(memo.get("key", 31_000));
+        assertEquals("value", memo.get("forever", Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void dropsLeastRecentlyUsedValues() {
+        ScriptMemo memo = new ScriptMemo(2);
+        memo.put("a", 1);
+        memo.put("b", 2);
+        memo.get("a");
+        memo.put("c", 3);
+
+        assertEquals(2, memo.size());
+        assertEquals(1, memo.get("a"));
+        assertNull(memo.get("b"));
+    }
+
+    @Test
+    void computesMissingValuesOnce() throws Exception {
+        ScriptMemo memo = new ScriptMemo(10);
+        AtomicInteger computations = new AtomicInteger();
+
+        assertEquals(1, memo.getOrCompute("key", 60, computations::incrementAndGet));
+        assertEquals(1, memo.getOrCompute("key", 60, computations::incrementAndGet));
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void separatesVersionsOfScripts() {
+        ScriptMemo memo = ScriptMemo.forScript("report.groovy", "return 1");
+        assertSame(memo, ScriptMemo.forScript("report.groovy", "return 1"));
+        assertNotSame(memo, ScriptMemo.forScript("report.groovy", "return 2"));
+    }
+
+    @Test
+    void separatesScriptsWithTheSameSource() {
+        ScriptMemo memo = ScriptMemo.forScript("report.groovy", "return 1");
+        assertNotSame(memo, ScriptMemo.forScript("other.groovy", "return 1"));
+        assertNotSame(memo, ScriptMemo.forScript(null, "return 1"));
+    }
+}
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.scriptler.ScriptlerManagementHelper;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ScriptPrecompilerTest {
+
+    @Test
+    void reportsCompilationResultOfSavedScripts(JenkinsRule j) throws Exception {
+        final String valid = "return 'hello'";
+        final String broken = "return 'hello";
+        ScriptlerManagementHelper.saveScript("valid.groovy", valid, true);
+        ScriptlerManagementHelper.saveScript("broken.groovy", broken, true);
+
+        ScriptPrecompiler.Result validResult = awaitResult("valid.groovy", valid);
+        assertEquals(ScriptPrecompiler.Status.COMPILED, validResult.getStatus());
+        assertNull(validResult.getDiagnostics());
+
+        ScriptPrecompiler.Result brokenResult = awaitResult("broken.groovy", broken);
+        assertEquals(ScriptPrecompiler.Status.FAILED, brokenResult.getStatus());
+        assertNotNull(brokenResult.getDiagnostics());
+
+        // the result belongs to a specific version of the source
+        assertNull(ScriptPrecompiler.getResult("valid.groovy", "return 'other'"));
+    }
+
+    @Test
+    void reportsTypeCheckingErrorsOfStaticScripts(JenkinsRule j) throws Exception {
+        final String source = "String text = 'hello'\nreturn text.noSuchMethod()";
+        ScriptHelper.putScriptInApprovalQueueIfRequired(source);
+        ScriptPrecompiler.schedule("dynamic.groovy", source, false);
+        ScriptPrecompiler.schedule("static.groovy", source, true);
+
+        assertEquals(ScriptPrecompiler.Status.COMPILED, awaitResult("dynamic.groovy", source, false).getStatus());
+
+        ScriptPrecompiler.Result staticResult = awaitResult("static.groovy", source, true);
+        assertEquals(ScriptPrecompiler.Status.FAILED, staticResult.getStatus());
+        assertNotNull(staticResult.getDiagnostics());
+
+        // switching the mode invalidates the result
+        assertNull(ScriptPrecompiler.getResult("static.groovy", source, false));
+    }
+
+    private static ScriptPrecompiler.Result awaitResult(String id, String source) throws InterruptedException {
+        return awaitResult(id, source, false);
+    }
+
+    private static ScriptPrecompiler.Result awaitResult(String id, String source, boolean compileStatic)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        ScriptPrecompiler.Result result = ScriptPrecompiler.getResult(id, source, compileStatic);
+        while (result != null && result.getStatus() == ScriptPrecompiler.Status.PENDING) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("compiling " + id + " did not complete in time");
+            }
+            Thread.sleep(50);
+            result = ScriptPrecompiler.getResult(id, source, compileStatic);
+        }
+        assertNotNull(result);
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ScriptResultCacheTest {
+
+    @Test
+    void expiresEntries() {
+        ScriptResultCache cache = new ScriptResultCache(10);
+        assertTrue(cache.put("key", "output", 30, 0, 1_000));
+
+        ScriptResultCache.Entry entry = cache.get("key", 11_000);
+        assertNotNull(entry);
+        assertEquals("output", entry.output());
+        assertEquals(20, entry.remainingSeconds(11_000));
+        assertNull(cache.get("key", 31_000));
+    }
+
+    @Test
+    void skipsOutputsBiggerThanAllowed() {
+        ScriptResultCache cache = new ScriptResultCache(10);
+        assertFalse(cache.put("key", "0123456789", 30, 5, 0));
+        assertNull(cache.get("key", 0));
+        assertTrue(cache.put("key", "01234", 30, 5, 0));
+    }
+}
@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.jenkinsci.plugins.scriptler.config.Script;
+import org.junit.jupiter.api.Test;
+
+class ScriptSearchIndexTest {
+
+    @Test
+    void ranksNameMatchesFirst() {
+        ScriptSearchIndex index = new ScriptSearchIndex();
+        index.index(
+                new Script("cleanup.groovy", "Cleanup workspaces", "removes old workspaces", true, List.of(), false),
+                "println 'nothing to see'");
+        index.index(
+                new Script("other.groovy", "Other", "does something else", true, List.of(), false),
+                "// cleanup is mentioned in the source only");
+
+        List<ScriptSearchIndex.Hit> hits = index.search("cleanup", 10, hit -> true);
+
+        assertEquals(2, hits.size());
+        assertEquals("cleanup.groovy", hits.get(0).id());
+        assertEquals("other.groovy", hits.get(1).id());
+    }
+
+    @Test
+    void allTermsMustMatch() {
+        ScriptSearchIndex index = new ScriptSearchIndex();
+        index.index(
+                new Script(
+                        "params.groovy",
+                        "Disk usage",
+                        "reports the disk usage",
+                        true,
+                        List.of(new Parameter("threshold", "90")),
+                        false),
+                null);
+        index.index(new Script("disk.groovy", "Disk", null, true, List.of(), false), null);
+
+        List<ScriptSearchIndex.Hit> hits = index.search("disk thresh", 10, hit -> true);
+
+        assertEquals(1, hits.size());
+        assertEquals("params.groovy", hits.get(0).id());
+    }
+
+    @Test
+    void reflectsUpdatesAndRemovals() {
+        ScriptSearchIndex index = new ScriptSearchIndex();
+        index.index(new Script("a.groovy", "First name", null, true, List.of(), false), null);
+        assertEquals(1, index.search("first", 10, hit -> true).size());
+
+        index.index(new Script("a.groovy", "Second name", null, true, List.of(), false), null);
+        assertTrue(index.search("first", 10, hit -> true).isEmpty());
+        assertEquals(1, index.search("second", 10, hit -> true).size());
+
+        index.remove("a.groovy");
+        assertTrue(index.search("second", 10, hit -> true).isEmpty());
+    }
+
+    @Test
+    void appliesFilterAndLimit() {
+        ScriptSearchIndex index = new ScriptSearchIndex();
+        for (int i = 0; i < 5; i++) {
+            index.index(new Script("script" + i + ".groovy", "Report " + i, null, true, List.of(), false), null);
+        }
+
+        assertEquals(3, index.search("report", 3, hit -> true).size());
+        assertEquals(
+                1,
+                index.search("report", 10, hit -> hit.id().equals("script2.groovy"))
+                        .size());
+        assertTrue(index.search("  ", 10, hit -> true).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.scriptler.config.Parameter;
+import org.junit.jupiter.api.Test;
+
+class SharedExecutionsTest {
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        String key = SharedExecutions.key("return 1", List.of(new Parameter("a", "1")), List.of("built-in"));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> SharedExecutions.run(key, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                release.await();
+                return "output";
+            }));
+            started.await();
+            Future<String> second = executor.submit(() -> SharedExecutions.run(key, () -> {
+                executions.incrementAndGet();
+                return "other output";
+            }));
+            // keep the first execution running until the second caller joined it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (SharedExecutions.getJoinedCallers(key) < 1) {
+                assertTrue(System.nanoTime() - deadline < 0, "the second caller did not join in time");
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("output", first.get(10, TimeUnit.SECONDS));
+            assertEquals("output", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // once completed, the next call executes again
+        assertEquals("again", SharedExecutions.run(key, () -> "again"));
+    }
+
+    @Test
+    void keyDependsOnInput() {
+        String key = SharedExecutions.key(
+                "return 1", List.of(new Parameter("a", "1"), new Parameter("b", "2")), List.of("built-in"));
+        assertEquals(
+                key,
+                SharedExecutions.key(
+                        "return 1", List.of(new Parameter("b", "2"), new Parameter("a", "1")), List.of("built-in")));
+        assertNotEquals(key, SharedExecutions.key("return 1", List.of(new Parameter("a", "1")), List.of("built-in")));
+        assertNotEquals(
+                key,
+                SharedExecutions.key(
+                        "return 1", List.of(new Parameter("a", "1"), new Parameter("b", "2")), List.of("agent")));
+        // neither a separator in a value nor in a node name makes two different inputs share a key
+        assertNotEquals(
+                SharedExecutions.key("return 1", List.of(new Parameter("a", "1\nb=2")), List.of("built-in")),
+                SharedExecutions.key(
+                        "return 1", List.of(new Parameter("a", "1"), new Parameter("b", "2")), List.of("built-in")));
+        assertNotEquals(
+                SharedExecutions.key("return 1", List.of(), List.of("a,b")),
+                SharedExecutions.key("return 1", List.of(), List.of("a", "b")));
+    }
+}
@@ -0,0 +1,93 @@
+package org.jenkinsci.plugins.scriptler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillingOutputStreamTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsSmallOutputsInMemory() throws IOException {
+        try (SpillingOutputStream out = new SpillingOutputStream(directory, 10)) {
+            out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+
+            assertFalse(out.isTruncated());
+            assertNull(out.getId());
+            assertEquals("0123456789", out.getText("url"));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void spillsBigOutputsToFile() throws IOException {
+        SpillingOutputStream out = new SpillingOutputStream(directory, 10);
+        out.write("0123456".getBytes(StandardCharsets.UTF_8));
+        out.write("789abcdefghij".getBytes(StandardCharsets.UTF_8));
+        out.write('k');
+        out.write("lmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertTrue(out.isTruncated());
+        assertNotNull(out.getId());
+        assertEquals(
+                "0123456789abcdefghijklmnopqrstuvwxyz",
+                Files.readString(directory.resolve(out.getId() + ".log"), StandardCharsets.UTF_8));
+        String text = out.getText("url");
+        assertTrue(text.startsWith("01234\n"), text);
+        assertTrue(text.endsWith("\nvwxyz"), text);
+        assertTrue(text.contains("26 bytes") && text.contains("url"), text);
+    }
+
+    @Test
+    void cutsAtLineBreaks() throws IOException {
+        SpillingOutputStream out = new SpillingOutputStream(directory, 24);
+        out.write("line1\nline2\nline3\nline4\nline5\nline6\n".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        // the head and the tail are 12 bytes each, the tail starts within the line before the last one
+        String text = out.getText("url");
+        assertTrue(text.startsWith("line1\nline2\n... 18 bytes"), text);
+        assertTrue(text.endsWith("...\nline6\n"), text);
+    }
+
+    @Test
+    void cutsAtCharacters() throws IOException {
+        SpillingOutputStream out = new SpillingOutputStream(directory, 10);
+        // 3 bytes each
+        out.write("\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        String text = out.getText("url");
+        assertTrue(text.startsWith("\u20ac\n"), text);
+        assertTrue(text.endsWith("\n\u20ac"), text);
+        assertTrue(text.contains("18 bytes"), text);
+    }
+
+    @Test
+    void deletesExpiredFiles() throws IOException {
+        Path expired = Files.writeString(directory.resolve("expired.log"), "old");
+        Files.setLastModifiedTime(expired, FileTime.fromMillis(0));
+        Path recent = Files.writeString(directory.resolve("recent.log"), "new");
+
+        SpillingOutputStream.deleteExpired(directory, TimeUnit.DAYS.toMillis(2));
+
+        assertFalse(Files.exists(expired));
+        assertTrue(Files.exists(recent));
+    }
+}